@@ -0,0 +1,478 @@
+package com.paulandcode.config;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.paulandcode.utils.SearchResult;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @Description: 二进制的value序列化, 直接写入字节数组, 不经过中间的JSON字符串.
+ *  字符串, 数字, 布尔值, String[], List, Map及检索结果(SearchResult)使用紧凑的二进制格式, 其他类型退回fastjson.
+ *  序列化后超过compressThreshold字节时使用Deflater(BEST_SPEED)压缩.
+ *  第一个字节为格式标记, 不是格式标记时按旧的fastjson格式解析, 升级前写入的缓存仍可读取.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 19:50
+ */
+public class BinaryRedisSerializer implements RedisSerializer<Object> {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 格式标记: 未压缩
+     */
+    private static final byte FORMAT_PLAIN = (byte) 0xB1;
+
+    /**
+     * 格式标记: 已压缩, 其后为原始长度(varint)及压缩后的数据
+     */
+    private static final byte FORMAT_DEFLATE = (byte) 0xB2;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_TRUE = 6;
+    private static final byte TYPE_FALSE = 7;
+    private static final byte TYPE_STRING_ARRAY = 8;
+    private static final byte TYPE_LIST = 9;
+    private static final byte TYPE_MAP = 10;
+    private static final byte TYPE_SEARCH_RESULT = 11;
+    private static final byte TYPE_JSON = 12;
+    private static final byte TYPE_SEARCH_RESULT_FACETS = 13;
+
+    /**
+     * 超过该字节数时压缩, 小于等于0时不压缩
+     */
+    private final int compressThreshold;
+
+    public BinaryRedisSerializer(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object o) throws SerializationException {
+        if (o == null) {
+            return new byte[0];
+        }
+        Output out = new Output(64);
+        out.writeByte(FORMAT_PLAIN);
+        writeValue(out, o);
+        if (compressThreshold <= 0 || out.pos <= compressThreshold) {
+            return out.toByteArray();
+        }
+        return compress(out.buf, out.pos);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length <= 0) {
+            return null;
+        }
+        if (bytes[0] == FORMAT_PLAIN) {
+            return readValue(new Input(bytes, 1, bytes.length));
+        }
+        if (bytes[0] == FORMAT_DEFLATE) {
+            byte[] plain = decompress(bytes);
+            return readValue(new Input(plain, 0, plain.length));
+        }
+        // 升级前使用FastJsonRedisSerializer写入的缓存
+        return JSON.parse(new String(bytes, UTF_8));
+    }
+
+    private static void writeValue(Output out, Object o) {
+        if (o == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (o instanceof String) {
+            out.writeByte(TYPE_STRING);
+            out.writeString((String) o);
+        } else if (o instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeVarLong(zigZag((Integer) o));
+        } else if (o instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeVarLong(zigZag((Long) o));
+        } else if (o instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeLong(Double.doubleToLongBits((Double) o));
+        } else if (o instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeInt(Float.floatToIntBits((Float) o));
+        } else if (o instanceof Boolean) {
+            out.writeByte((Boolean) o ? TYPE_TRUE : TYPE_FALSE);
+        } else if (o instanceof String[]) {
+            String[] array = (String[]) o;
+            out.writeByte(TYPE_STRING_ARRAY);
+            out.writeVarLong(array.length);
+            for (String s : array) {
+                writeNullableString(out, s);
+            }
+        } else if (o instanceof List) {
+            List<?> list = (List<?>) o;
+            out.writeByte(TYPE_LIST);
+            out.writeVarLong(list.size());
+            for (Object item : list) {
+                writeValue(out, item);
+            }
+        } else if (o instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) o;
+            out.writeByte(TYPE_MAP);
+            out.writeVarLong(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (o instanceof SearchResult) {
+            SearchResult searchResult = (SearchResult) o;
+            // 没有统计结果时仍使用原来的格式
+            out.writeByte(searchResult.getFacets() == null ? TYPE_SEARCH_RESULT : TYPE_SEARCH_RESULT_FACETS);
+            writeNullableString(out, searchResult.getCursor());
+            List<String[]> data = searchResult.getData();
+            out.writeVarLong(data.size());
+            for (String[] row : data) {
+                out.writeVarLong(row.length);
+                for (String s : row) {
+                    writeNullableString(out, s);
+                }
+            }
+            if (searchResult.getFacets() != null) {
+                writeValue(out, searchResult.getFacets());
+            }
+        } else {
+            out.writeByte(TYPE_JSON);
+            byte[] json = JSON.toJSONBytes(o, SerializerFeature.WriteClassName);
+            out.writeVarLong(json.length);
+            out.writeBytes(json, 0, json.length);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object readValue(Input in) {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return in.readString();
+            case TYPE_INTEGER:
+                return (int) unZigZag(in.readVarLong());
+            case TYPE_LONG:
+                return unZigZag(in.readVarLong());
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            case TYPE_FLOAT:
+                return Float.intBitsToFloat(in.readInt());
+            case TYPE_TRUE:
+                return Boolean.TRUE;
+            case TYPE_FALSE:
+                return Boolean.FALSE;
+            case TYPE_STRING_ARRAY: {
+                String[] array = new String[in.readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = readNullableString(in);
+                }
+                return array;
+            }
+            case TYPE_LIST: {
+                int size = in.readLength();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case TYPE_MAP: {
+                int size = in.readLength();
+                Map<Object, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                return map;
+            }
+            case TYPE_SEARCH_RESULT:
+            case TYPE_SEARCH_RESULT_FACETS: {
+                SearchResult searchResult = new SearchResult();
+                searchResult.setCursor(readNullableString(in));
+                int size = in.readLength();
+                List<String[]> data = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    String[] row = new String[in.readLength()];
+                    for (int j = 0; j < row.length; j++) {
+                        row[j] = readNullableString(in);
+                    }
+                    data.add(row);
+                }
+                searchResult.setData(data);
+                if (type == TYPE_SEARCH_RESULT_FACETS) {
+                    searchResult.setFacets((Map<String, Map<String, Long>>) readValue(in));
+                }
+                return searchResult;
+            }
+            case TYPE_JSON: {
+                int length = in.readLength();
+                in.require(length);
+                Object o = JSON.parse(new String(in.buf, in.pos, length, UTF_8));
+                in.pos += length;
+                return o;
+            }
+            default:
+                throw new SerializationException("无法识别的缓存数据类型: " + type);
+        }
+    }
+
+    /**
+     * 可能为null的字符串, 长度加1后写入, 0表示null
+     */
+    private static void writeNullableString(Output out, String s) {
+        if (s == null) {
+            out.writeVarLong(0);
+        } else {
+            out.writeString(s, 1);
+        }
+    }
+
+    private static String readNullableString(Input in) {
+        int length = in.readLength();
+        return length == 0 ? null : in.readUtf8(length - 1);
+    }
+
+    private static long zigZag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    private static long unZigZag(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static byte[] compress(byte[] plain, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(plain, 1, length - 1);
+            deflater.finish();
+            Output out = new Output(length / 2 + 16);
+            out.writeByte(FORMAT_DEFLATE);
+            out.writeVarLong(length - 1);
+            while (!deflater.finished()) {
+                out.ensureCapacity(4096);
+                out.pos += deflater.deflate(out.buf, out.pos, out.buf.length - out.pos);
+            }
+            // 压缩后反而更大时不压缩
+            if (out.pos >= length) {
+                return Arrays.copyOf(plain, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] bytes) {
+        Input in = new Input(bytes, 1, bytes.length);
+        int length = in.readLength();
+        byte[] plain = new byte[length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, in.pos, bytes.length - in.pos);
+            int n = 0;
+            while (n < length && !inflater.finished()) {
+                int read = inflater.inflate(plain, n, length - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != length) {
+                throw new SerializationException("缓存数据不完整! ");
+            }
+            return plain;
+        } catch (DataFormatException e) {
+            throw new SerializationException("缓存数据解压失败! ", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 可扩容的字节数组
+     */
+    private static class Output {
+        private byte[] buf;
+
+        private int pos;
+
+        private Output(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        private void ensureCapacity(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, pos + n));
+            }
+        }
+
+        private void writeByte(byte b) {
+            ensureCapacity(1);
+            buf[pos++] = b;
+        }
+
+        private void writeBytes(byte[] b, int off, int len) {
+            ensureCapacity(len);
+            System.arraycopy(b, off, buf, pos, len);
+            pos += len;
+        }
+
+        private void writeInt(int v) {
+            ensureCapacity(4);
+            buf[pos++] = (byte) (v >>> 24);
+            buf[pos++] = (byte) (v >>> 16);
+            buf[pos++] = (byte) (v >>> 8);
+            buf[pos++] = (byte) v;
+        }
+
+        private void writeLong(long v) {
+            writeInt((int) (v >>> 32));
+            writeInt((int) v);
+        }
+
+        private void writeVarLong(long v) {
+            ensureCapacity(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        private void writeString(String s) {
+            writeString(s, 0);
+        }
+
+        /**
+         * 先写入UTF-8字节数(加上lengthOffset), 再直接把字符编码到数组中
+         */
+        private void writeString(String s, int lengthOffset) {
+            int length = s.length();
+            int utf8Length = 0;
+            for (int i = 0; i < length; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    utf8Length++;
+                } else if (c < 0x800) {
+                    utf8Length += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    utf8Length += 4;
+                    i++;
+                } else {
+                    utf8Length += 3;
+                }
+            }
+            writeVarLong(utf8Length + lengthOffset);
+            ensureCapacity(utf8Length);
+            for (int i = 0; i < length; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    buf[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[pos++] = (byte) (0xC0 | (c >> 6));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                    buf[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    // 不成对的代理字符按3字节写入, 解码时会被替换为U+FFFD
+                    buf[pos++] = (byte) (0xE0 | (c >> 12));
+                    buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    /**
+     * 字节数组的读取位置
+     */
+    private static class Input {
+        private final byte[] buf;
+
+        private final int limit;
+
+        private int pos;
+
+        private Input(byte[] buf, int pos, int limit) {
+            this.buf = buf;
+            this.pos = pos;
+            this.limit = limit;
+        }
+
+        private void require(int n) {
+            if (n < 0 || pos + n > limit) {
+                throw new SerializationException("缓存数据不完整! ");
+            }
+        }
+
+        private byte readByte() {
+            require(1);
+            return buf[pos++];
+        }
+
+        private int readInt() {
+            require(4);
+            return ((buf[pos++] & 0xFF) << 24) | ((buf[pos++] & 0xFF) << 16)
+                    | ((buf[pos++] & 0xFF) << 8) | (buf[pos++] & 0xFF);
+        }
+
+        private long readLong() {
+            return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        }
+
+        private long readVarLong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return v;
+                }
+            }
+            throw new SerializationException("缓存数据格式错误! ");
+        }
+
+        private int readLength() {
+            long length = readVarLong();
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                throw new SerializationException("缓存数据格式错误! ");
+            }
+            return (int) length;
+        }
+
+        private String readString() {
+            return readUtf8(readLength());
+        }
+
+        private String readUtf8(int length) {
+            require(length);
+            String s = new String(buf, pos, length, UTF_8);
+            pos += length;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.paulandcode.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: Lucene索引配置, 对应spring.lucene下的配置.
+ *  spring.lucene.defaults为所有索引的默认配置, spring.lucene.indexes.索引名称为某个索引单独的配置,
+ *  单独配置的索引中未配置的项使用程序中的默认值, 而不是spring.lucene.defaults中的值.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 15:20
+ */
+@Component
+@ConfigurationProperties(prefix = "spring.lucene")
+public class LuceneProperties {
+    /**
+     * 所有索引的默认配置
+     */
+    private IndexProperties defaults = new IndexProperties();
+
+    /**
+     * 索引名称与其单独配置的对应关系
+     */
+    private Map<String, IndexProperties> indexes = new HashMap<>();
+
+    /**
+     * 获得某个索引的配置, 没有单独配置时使用默认配置. 别名指向的带版本的索引(如: news@20261019010000)使用别名(news)的配置
+     *
+     * @param indexName 索引存储相对路径
+     * @return com.paulandcode.config.LuceneProperties.IndexProperties
+     */
+    public IndexProperties getIndex(String indexName) {
+        IndexProperties indexProperties = indexes.get(indexName);
+        int separator = indexName.lastIndexOf('@');
+        if (indexProperties == null && separator > 0) {
+            indexProperties = indexes.get(indexName.substring(0, separator));
+        }
+        return indexProperties == null ? defaults : indexProperties;
+    }
+
+    public IndexProperties getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(IndexProperties defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, IndexProperties> getIndexes() {
+        return indexes;
+    }
+
+    public void setIndexes(Map<String, IndexProperties> indexes) {
+        this.indexes = indexes;
+    }
+
+    /**
+     * 单个索引的配置
+     */
+    public static class IndexProperties {
+        /**
+         * 批量写入时构建文档并写入的线程数
+         */
+        private int indexThreads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * 批量写入时每个线程每次调用addDocuments写入的文档数
+         */
+        private int batchSize = 500;
+
+        /**
+         * 解析与写入之间的队列长度, 队列满时解析线程等待
+         */
+        private int queueCapacity = 5000;
+
+        /**
+         * IndexWriter的内存缓冲大小, 单位: MB, 超过后刷新为新的段
+         */
+        private double ramBufferSizeMb = 64;
+
+        /**
+         * Text形式的索引是否在倒排表中保存偏移量, 保存后高亮时不需要重新分词. 已有数据的索引修改后需要重新创建索引才能生效
+         */
+        private boolean storeOffsets = true;
+
+        /**
+         * 高亮时每个片段的最小长度(字符数), 片段在句子边界处截断
+         */
+        private int highlightFragmentSize = 100;
+
+        /**
+         * 高亮时每个检索域最多返回的片段数
+         */
+        private int highlightMaxPassages = 1;
+
+        /**
+         * 索引排序, 如: publishTime:desc. 段内数据按该顺序保存, 检索的排序以其为前缀时第一页可以提前结束.
+         * 排序域必须在域定义中开启docValues, 已有数据的索引不能修改, 需要删除索引后重新创建
+         */
+        private String indexSort;
+
+        /**
+         * 是否并行检索各分片, 需要spring.lucene.search-threads大于0. 适用于低并发下较大索引的检索, 高并发时会降低吞吐量
+         */
+        private boolean parallelSearch;
+
+        /**
+         * 数据条数达到该值时才并行检索
+         */
+        private int parallelMinDocs = 1000000;
+
+        /**
+         * 每个分片最多的数据条数
+         */
+        private int sliceMaxDocs = 250000;
+
+        /**
+         * 每个分片最多的段数
+         */
+        private int sliceMaxSegments = 5;
+
+        /**
+         * 索引文件夹类型: auto(由Lucene按平台选择), mmap, nio, simple
+         */
+        private String directoryType = "auto";
+
+        /**
+         * 使用MMapDirectory时是否在打开文件后立即读入页缓存
+         */
+        private boolean mmapPreload;
+
+        /**
+         * 是否使用NRTCachingDirectory将近实时刷新产生的小段缓存在内存中
+         */
+        private boolean nrtCaching;
+
+        /**
+         * 小于该值的新段缓存在内存中, 单位: MB
+         */
+        private double nrtCachingMaxMergeSizeMb = 5;
+
+        /**
+         * 内存中缓存的段的总大小上限, 单位: MB
+         */
+        private double nrtCachingMaxCachedMb = 60;
+
+        /**
+         * 启动时执行的预热查询, 需要指定检索域, 如: title:检索
+         */
+        private List<String> warmupQueries = new ArrayList<>();
+
+        /**
+         * TieredMergePolicy每层允许的段数, 越小段数越少检索越快, 但合并越频繁
+         */
+        private double segmentsPerTier = 10;
+
+        /**
+         * 每次合并最多合并的段数
+         */
+        private int maxMergeAtOnce = 10;
+
+        /**
+         * 正常合并产生的段的最大大小, 单位: MB, 超过后不再参与合并(forceMerge除外)
+         */
+        private double maxMergedSegmentMb = 5 * 1024;
+
+        /**
+         * 小于该值的段按该值计算大小, 使小段优先被合并, 单位: MB
+         */
+        private double floorSegmentMb = 2;
+
+        /**
+         * ConcurrentMergeScheduler的合并线程数, 不大于0时由Lucene按磁盘类型及CPU核数确定
+         */
+        private int mergeThreads;
+
+        public int getIndexThreads() {
+            return indexThreads;
+        }
+
+        public void setIndexThreads(int indexThreads) {
+            this.indexThreads = indexThreads;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public double getRamBufferSizeMb() {
+            return ramBufferSizeMb;
+        }
+
+        public void setRamBufferSizeMb(double ramBufferSizeMb) {
+            this.ramBufferSizeMb = ramBufferSizeMb;
+        }
+
+        public boolean isStoreOffsets() {
+            return storeOffsets;
+        }
+
+        public void setStoreOffsets(boolean storeOffsets) {
+            this.storeOffsets = storeOffsets;
+        }
+
+        public int getHighlightFragmentSize() {
+            return highlightFragmentSize;
+        }
+
+        public void setHighlightFragmentSize(int highlightFragmentSize) {
+            this.highlightFragmentSize = highlightFragmentSize;
+        }
+
+        public int getHighlightMaxPassages() {
+            return highlightMaxPassages;
+        }
+
+        public void setHighlightMaxPassages(int highlightMaxPassages) {
+            this.highlightMaxPassages = highlightMaxPassages;
+        }
+
+        public String getIndexSort() {
+            return indexSort;
+        }
+
+        public void setIndexSort(String indexSort) {
+            this.indexSort = indexSort;
+        }
+
+        public boolean isParallelSearch() {
+            return parallelSearch;
+        }
+
+        public void setParallelSearch(boolean parallelSearch) {
+            this.parallelSearch = parallelSearch;
+        }
+
+        public int getParallelMinDocs() {
+            return parallelMinDocs;
+        }
+
+        public void setParallelMinDocs(int parallelMinDocs) {
+            this.parallelMinDocs = parallelMinDocs;
+        }
+
+        public int getSliceMaxDocs() {
+            return sliceMaxDocs;
+        }
+
+        public void setSliceMaxDocs(int sliceMaxDocs) {
+            this.sliceMaxDocs = sliceMaxDocs;
+        }
+
+        public int getSliceMaxSegments() {
+            return sliceMaxSegments;
+        }
+
+        public void setSliceMaxSegments(int sliceMaxSegments) {
+            this.sliceMaxSegments = sliceMaxSegments;
+        }
+
+        public String getDirectoryType() {
+            return directoryType;
+        }
+
+        public void setDirectoryType(String directoryType) {
+            this.directoryType = directoryType;
+        }
+
+        public boolean isMmapPreload() {
+            return mmapPreload;
+        }
+
+        public void setMmapPreload(boolean mmapPreload) {
+            this.mmapPreload = mmapPreload;
+        }
+
+        public boolean isNrtCaching() {
+            return nrtCaching;
+        }
+
+        public void setNrtCaching(boolean nrtCaching) {
+            this.nrtCaching = nrtCaching;
+        }
+
+        public double getNrtCachingMaxMergeSizeMb() {
+            return nrtCachingMaxMergeSizeMb;
+        }
+
+        public void setNrtCachingMaxMergeSizeMb(double nrtCachingMaxMergeSizeMb) {
+            this.nrtCachingMaxMergeSizeMb = nrtCachingMaxMergeSizeMb;
+        }
+
+        public double getNrtCachingMaxCachedMb() {
+            return nrtCachingMaxCachedMb;
+        }
+
+        public void setNrtCachingMaxCachedMb(double nrtCachingMaxCachedMb) {
+            this.nrtCachingMaxCachedMb = nrtCachingMaxCachedMb;
+        }
+
+        public List<String> getWarmupQueries() {
+            return warmupQueries;
+        }
+
+        public void setWarmupQueries(List<String> warmupQueries) {
+            this.warmupQueries = warmupQueries;
+        }
+
+        public double getSegmentsPerTier() {
+            return segmentsPerTier;
+        }
+
+        public void setSegmentsPerTier(double segmentsPerTier) {
+            this.segmentsPerTier = segmentsPerTier;
+        }
+
+        public int getMaxMergeAtOnce() {
+            return maxMergeAtOnce;
+        }
+
+        public void setMaxMergeAtOnce(int maxMergeAtOnce) {
+            this.maxMergeAtOnce = maxMergeAtOnce;
+        }
+
+        public double getMaxMergedSegmentMb() {
+            return maxMergedSegmentMb;
+        }
+
+        public void setMaxMergedSegmentMb(double maxMergedSegmentMb) {
+            this.maxMergedSegmentMb = maxMergedSegmentMb;
+        }
+
+        public double getFloorSegmentMb() {
+            return floorSegmentMb;
+        }
+
+        public void setFloorSegmentMb(double floorSegmentMb) {
+            this.floorSegmentMb = floorSegmentMb;
+        }
+
+        public int getMergeThreads() {
+            return mergeThreads;
+        }
+
+        public void setMergeThreads(int mergeThreads) {
+            this.mergeThreads = mergeThreads;
+        }
+    }
+}
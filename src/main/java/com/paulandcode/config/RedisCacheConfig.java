@@ -17,6 +17,7 @@ import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
  * 
@@ -53,6 +54,10 @@ public class RedisCacheConfig extends CachingConfigurerSupport {
 	@Value("${spring.redis.long-cache-time}")
 	private int longCacheTime;
 
+	/** value序列化后超过该字节数时压缩, 小于等于0时不压缩. **/
+	@Value("${spring.redis.compress-threshold}")
+	private int compressThreshold;
+
 	/**
 	 * 
 	 * @Description: 指定默认Key生成策略 , 生成后, key如: 
@@ -118,15 +123,15 @@ public class RedisCacheConfig extends CachingConfigurerSupport {
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory){
         RedisTemplate<String, Object> template = new RedisTemplate<>();
-        template.setKeySerializer(new FastJsonRedisSerializer<>(String.class));
-        template.setValueSerializer(new FastJsonRedisSerializer<>(Object.class));
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new BinaryRedisSerializer(compressThreshold));
         template.setConnectionFactory(redisConnectionFactory);
         return template;
     }
 	
 	/**
 	 * 
-	 * @Description: 设置缓存时间, 设置key与value的序列化. 
+	 * @Description: 设置缓存时间, 设置key与value的序列化. key直接以UTF-8写入, value使用二进制序列化. 
 	 * 		可设置禁止缓存null: redisCacheConfiguration.disableCachingNullValues(), 若有null缓存, 则会报错. 
 	 * @param seconds 缓存时间, 单位: 秒. 
 	 * @return
@@ -134,9 +139,9 @@ public class RedisCacheConfig extends CachingConfigurerSupport {
 	private RedisCacheConfiguration getRedisCacheConfigurationWithTtl(Integer seconds) {
         return RedisCacheConfiguration.defaultCacheConfig()
         		.serializeKeysWith(RedisSerializationContext.SerializationPair
-        				.fromSerializer(new FastJsonRedisSerializer<>(String.class)))
+        				.fromSerializer(new StringRedisSerializer()))
         		.serializeValuesWith(RedisSerializationContext.SerializationPair
-        				.fromSerializer(new FastJsonRedisSerializer<>(Object.class)))
+        				.fromSerializer(new BinaryRedisSerializer(compressThreshold)))
         		.entryTtl(Duration.ofSeconds(seconds));
     }
 	
@@ -1,15 +1,25 @@
 package com.paulandcode.controller;
 
 import com.paulandcode.service.LuceneService;
+import com.paulandcode.utils.BatchQuery;
+import com.paulandcode.utils.DeleteRequest;
+import com.paulandcode.utils.IndexJob;
+import com.paulandcode.utils.IndexSchema;
 import com.paulandcode.utils.LuceneUtils;
 import com.paulandcode.utils.R;
+import com.paulandcode.utils.SearchMetrics;
+import com.paulandcode.utils.SearchRequest;
+import com.paulandcode.utils.SearchResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -29,34 +39,35 @@ public class LuceneController {
     }
 
     /**
-     * 通过Excel文件增加索引
+     * 通过Excel文件增加索引, async为1时提交异步任务并立即返回任务, 通过jobs/{id}查询进度
      *
-     * @param params indexName, isChinese, textColumnNums
+     * @param params indexName, isChinese(或analyzer), textColumnNums, async
      * @param file Excel文件
      * @return com.paulandcode.utils.R
      */
     @RequestMapping(value = "addIndex", method = RequestMethod.POST)
 	public R addIndex(@RequestParam Map<String, Object> params, @RequestParam("file") MultipartFile file) {
-        luceneService.addIndex(params, file);
-		return R.ok();
+        if (isAsync(params)) {
+            return R.ok().put("data", luceneService.submitAddIndex(params, file));
+        }
+		return R.ok().put("data", luceneService.addIndex(params, file));
 	}
 
     /**
      * 通过Post的请求参数增加索引
      *
-     * @param params indexName, isChinese, textColumns, dataListString
+     * @param params indexName, isChinese(或analyzer), textColumns, dataListString
      * @return com.paulandcode.utils.R
      */
     @RequestMapping(value = "addIndexByParams", method = RequestMethod.POST)
     public R addIndexByParams(@RequestParam Map<String, Object> params) {
-        luceneService.addIndexByParams(params);
-        return R.ok();
+        return R.ok().put("data", luceneService.addIndexByParams(params));
     }
 
 	/**
 	 * 删除个别索引
 	 *
-     * @param params indexName, isChinese, fieldName, keyword
+     * @param params indexName, isChinese(或analyzer), fieldName, keyword
 	 * @return com.paulandcode.utils.R
 	 */
     @RequestMapping(value = "deleteIndex")
@@ -65,6 +76,19 @@ public class LuceneController {
         return R.ok();
     }
 
+    /**
+     * 批量删除, 请求体为JSON, 如: {"indexName": "news", "field": "id", "values": ["1", "2"]}
+     * 或 {"indexName": "news", "clauses": [{"type": "RANGE", "field": "publishTime", "to": "2020-01-01", "includeUpper": false}]},
+     * 只提交一次, 返回删除的数据条数
+     *
+     * @param request 删除请求
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "deleteIndexes", method = RequestMethod.POST)
+    public R deleteIndexes(@RequestBody DeleteRequest request) {
+        return R.ok().put("data", luceneService.deleteIndexes(request));
+    }
+
     /**
      * 删除整个索引文件夹
      *
@@ -78,22 +102,40 @@ public class LuceneController {
     }
 
     /**
-     * 通过Excel批量更新索引
+     * 通过Excel批量更新索引, async为1时提交异步任务并立即返回任务, 通过jobs/{id}查询进度
      *
-     * @param params indexName, isChinese, textColumnNums, keywordColumnNum
+     * @param params indexName, isChinese(或analyzer), textColumnNums, keywordColumnNum, async
      * @param file Excel附件
      * @return com.paulandcode.utils.R
      */
     @RequestMapping(value = "updateIndex", method = RequestMethod.POST)
     public R updateIndex(@RequestParam Map<String, Object> params, @RequestParam("file") MultipartFile file) {
+        if (isAsync(params)) {
+            return R.ok().put("data", luceneService.submitUpdateIndex(params, file));
+        }
         luceneService.updateIndex(params, file);
         return R.ok();
     }
 
+    /**
+     * 查询异步索引任务的状态及进度
+     *
+     * @param id 任务编号
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "jobs/{id}", method = RequestMethod.GET)
+    public R job(@PathVariable("id") String id) {
+        IndexJob job = luceneService.getJob(id);
+        if (job == null) {
+            return R.error("任务不存在或已过期! ");
+        }
+        return R.ok().put("data", job);
+    }
+
     /**
      * 通过Post的请求参数批量更新索引
      *
-     * @param params indexName, isChinese, textColumns, keywordColumn, dataListString
+     * @param params indexName, isChinese(或analyzer), textColumns, keywordColumn, dataListString
      * @return com.paulandcode.utils.R
      */
     @RequestMapping(value = "updateIndexByParams", method = RequestMethod.POST)
@@ -103,20 +145,218 @@ public class LuceneController {
     }
 
     /**
-     * 检索
+     * 检索, 返回的cursor为下一页的分页游标, 请求下一页时原样传回
      *
-     * @param params indexName, paging, isChinese, searchFieldName, resultFieldNames, keyword, num, preTag, postTag
+     * @param params indexName, cursor, paging, isChinese(或analyzer, 索引已保存分词器时忽略), searchFieldName, resultFieldNames, keyword, num, preTag, postTag
      * @return com.paulandcode.utils.R
      */
     @RequestMapping(value = "search")
     public R search(@RequestParam Map<String, Object> params) {
-        return R.ok().put("data", luceneService.search(params));
+        SearchResult result = luceneService.search(params);
+        return R.ok().put("data", result.getData()).put("cursor", result.getCursor());
+    }
+
+    /**
+     * 结构化检索, 请求体为JSON, 如:
+     * {"indexName": "news", "analyzer": "smartcn", "keyword": "检索", "fields": {"title": 2, "content": 1},
+     *  "clauses": [{"occur": "FILTER", "type": "TERM", "field": "type", "value": "1"},
+     *              {"occur": "FILTER", "type": "RANGE", "field": "date", "from": "2018-01-01", "to": "2018-12-31"}],
+     *  "sorts": [{"field": "date", "reverse": true}],
+     *  "facets": [{"field": "type", "size": 10}, {"field": "price", "ranges": [{"to": "100"}, {"from": "100"}]}],
+     *  "resultFieldNames": ["title", "content"], "num": 10, "cursor": null, "preTag": "<em>", "postTag": "</em>"}
+     *
+     * @param request 检索请求
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "query", method = RequestMethod.POST)
+    public R query(@RequestBody SearchRequest request) {
+        SearchResult result = luceneService.query(request);
+        return R.ok().put("data", result.getData()).put("cursor", result.getCursor()).put("facets", result.getFacets());
+    }
+
+    /**
+     * 批量检索, 请求体为JSON数组, 各个检索并发执行, 如:
+     * [{"type": "search", "params": {"indexName": "news", "searchFieldName": "title", ...}},
+     *  {"type": "query", "request": {"indexName": "news", "keyword": "检索", ...}},
+     *  {"type": "suggest", "params": {"indexName": "news", "searchFieldName": "title", ...}}]
+     *
+     * @param queries 各个检索
+     * @return com.paulandcode.utils.R data为与请求顺序一致的各个检索的响应信息, 每个都带有耗时took(毫秒)
+     */
+    @RequestMapping(value = "batch", method = RequestMethod.POST)
+    public R batch(@RequestBody List<BatchQuery> queries) {
+        long start = System.currentTimeMillis();
+        List<R> results = luceneService.batch(queries);
+        return R.ok().put("data", results).put("took", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 获得索引的域定义
+     *
+     * @param indexName 索引存储相对路径
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "schema", method = RequestMethod.GET)
+    public R getSchema(@RequestParam("indexName") String indexName) {
+        return R.ok().put("data", luceneService.getSchema(indexName));
+    }
+
+    /**
+     * 保存索引的域定义, 请求体为JSON, 如:
+     * {"fields": {"title": {"type": "TEXT"}, "type": {"type": "KEYWORD", "docValues": true},
+     *  "price": {"type": "DOUBLE", "docValues": true}, "date": {"type": "DATE", "dateFormat": "yyyy-MM-dd"}}}
+     * 已写入数据的域不能修改类型
+     *
+     * @param indexName 索引存储相对路径
+     * @param schema 域定义
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "schema", method = RequestMethod.POST)
+    public R saveSchema(@RequestParam("indexName") String indexName, @RequestBody IndexSchema schema) {
+        luceneService.saveSchema(indexName, schema);
+        return R.ok();
+    }
+
+    /**
+     * 列出索引根路径下所有索引的状态, 未打开的索引只返回文件大小
+     *
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "indexes", method = RequestMethod.GET)
+    public R listIndexes() {
+        return R.ok().put("data", luceneService.listIndexes());
+    }
+
+    /**
+     * 创建索引并保存分词器, 之后的写入, 检索及补全都使用该分词器, 不需要再传analyzer或isChinese
+     *
+     * @param params indexName, analyzer或isChinese(都不传时使用simple)
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "indexes/create", method = RequestMethod.POST)
+    public R createIndex(@RequestParam Map<String, Object> params) {
+        return R.ok().put("data", luceneService.createIndex(params));
+    }
+
+    /**
+     * 打开索引的写入流及检索器
+     *
+     * @param params indexName
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "indexes/open", method = RequestMethod.POST)
+    public R openIndex(@RequestParam Map<String, Object> params) {
+        return R.ok().put("data", luceneService.openIndex(params.get("indexName").toString()));
     }
 
     /**
-     * 自动补全
+     * 提交并关闭索引, 释放文件句柄, 之后的读写会重新打开
      *
-     * @param params indexName, isChinese, searchFieldName, keyword, num, paging, preTag, postTag
+     * @param indexName 索引存储相对路径
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "indexes/close", method = RequestMethod.POST)
+    public R closeIndex(@RequestParam("indexName") String indexName) {
+        luceneService.closeIndex(indexName);
+        return R.ok();
+    }
+
+    /**
+     * 立即提交索引
+     *
+     * @param indexName 索引存储相对路径
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "indexes/commit", method = RequestMethod.POST)
+    public R commitIndex(@RequestParam("indexName") String indexName) {
+        luceneService.commitIndex(indexName);
+        return R.ok();
+    }
+
+    /**
+     * 刷新检索器, 使已写入的数据立即可以被检索到
+     *
+     * @param indexName 索引存储相对路径
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "indexes/refresh", method = RequestMethod.POST)
+    public R refreshIndex(@RequestParam("indexName") String indexName) {
+        luceneService.refreshIndex(indexName);
+        return R.ok();
+    }
+
+    /**
+     * 统计索引的段: 段数, 大小及删除比例, 段数过多或删除比例过高时可以调用indexes/forceMerge合并
+     *
+     * @param params indexName
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "indexes/segments", method = RequestMethod.GET)
+    public R segments(@RequestParam Map<String, Object> params) {
+        return R.ok().put("data", luceneService.getSegments(params));
+    }
+
+    /**
+     * 在后台合并段, 立即返回任务, 通过jobs/{id}查询进度. onlyExpungeDeletes为1时只清除已删除的数据
+     *
+     * @param params indexName, maxSegments(默认为1), onlyExpungeDeletes
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "indexes/forceMerge", method = RequestMethod.POST)
+    public R forceMerge(@RequestParam Map<String, Object> params) {
+        return R.ok().put("data", luceneService.submitForceMerge(params));
+    }
+
+    /**
+     * 列出所有别名, 及其当前版本和可以回滚的旧版本
+     *
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "aliases", method = RequestMethod.GET)
+    public R listAliases() {
+        return R.ok().put("data", luceneService.listAliases());
+    }
+
+    /**
+     * 全量重建: 创建新版本的空索引并复制域定义, 返回新版本的索引名称.
+     * 之后以新版本的索引名称作为indexName写入全部数据(可使用异步任务), 再调用aliases/switch切换
+     *
+     * @param indexName 别名
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "aliases/versions", method = RequestMethod.POST)
+    public R createIndexVersion(@RequestParam("indexName") String indexName) {
+        return R.ok().put("data", luceneService.createIndexVersion(indexName));
+    }
+
+    /**
+     * 将别名原子地切换到新版本, 已开始的检索不受影响, 旧版本保留一段时间后删除
+     *
+     * @param indexName 别名
+     * @param version 新版本的索引名称
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "aliases/switch", method = RequestMethod.POST)
+    public R switchAlias(@RequestParam("indexName") String indexName, @RequestParam("version") String version) {
+        return R.ok().put("data", luceneService.switchAlias(indexName, version));
+    }
+
+    /**
+     * 回滚到切换前的版本, 只能在旧版本被删除前回滚
+     *
+     * @param indexName 别名
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "aliases/rollback", method = RequestMethod.POST)
+    public R rollbackAlias(@RequestParam("indexName") String indexName) {
+        return R.ok().put("data", luceneService.rollbackAlias(indexName));
+    }
+
+    /**
+     * 自动补全, 关键字的最后一个词作为前缀匹配. searchFieldName为补全域, weightFieldName为权重域(可选),
+     * contextFieldName为上下文域(可选), contexts为逗号分隔的上下文, allTermsRequired为0时不要求包含所有的词
+     *
+     * @param params indexName, isChinese(或analyzer, 索引已保存分词器时忽略), searchFieldName, weightFieldName, contextFieldName, contexts, allTermsRequired, keyword, num, preTag, postTag
      * @return com.paulandcode.utils.R
      */
     @RequestMapping(value = "suggest")
@@ -125,9 +365,9 @@ public class LuceneController {
     }
 
     /**
-     * 增加权重, 可以在每次点击某一条记录时增加这条记录的权重
+     * 增加权重, 可以在每次点击某一条记录时增加这条记录的权重, 权重定时批量写入索引
      *
-     * @param params 参数
+     * @param params indexName, keyFieldName, keyFieldValue, weight(可选, 默认为1)
      * @return com.paulandcode.utils.R
      */
     @RequestMapping(value = "addWeight")
@@ -135,4 +375,25 @@ public class LuceneController {
 
         return R.ok().put("data", LuceneUtils.addWeight(params));
     }
+
+    /**
+     * 检索相关的统计指标, 如每次检索访问Redis的平均次数
+     *
+     * @return com.paulandcode.utils.R
+     */
+    @RequestMapping(value = "metrics")
+    public R metrics() {
+        return R.ok().put("data", SearchMetrics.snapshot());
+    }
+
+    /**
+     * 是否提交异步任务
+     *
+     * @param params 参数
+     * @return boolean
+     */
+    private boolean isAsync(Map<String, Object> params) {
+        Object async = params.get("async");
+        return async != null && "1".equals(async.toString());
+    }
 }
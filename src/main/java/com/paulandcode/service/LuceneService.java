@@ -1,5 +1,16 @@
 package com.paulandcode.service;
 
+import com.paulandcode.utils.BatchQuery;
+import com.paulandcode.utils.BulkIndexer;
+import com.paulandcode.utils.DeleteRequest;
+import com.paulandcode.utils.IndexAliases;
+import com.paulandcode.utils.IndexJob;
+import com.paulandcode.utils.IndexManager;
+import com.paulandcode.utils.IndexSchema;
+import com.paulandcode.utils.R;
+import com.paulandcode.utils.SearchRequest;
+import com.paulandcode.utils.SearchResult;
+import com.paulandcode.utils.SegmentStats;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -19,25 +30,154 @@ public interface LuceneService {
      *
      * @param params
      * @param file
-     * @return void
+     * @return com.paulandcode.utils.BulkIndexer.Stats 写入统计
+     */
+    BulkIndexer.Stats addIndex(Map<String, Object> params, MultipartFile file);
+
+    /**
+     * 提交异步任务给数据增加索引, 立即返回任务
+     *
+     * @param params
+     * @param file
+     * @return com.paulandcode.utils.IndexJob
      */
-    void addIndex(Map<String, Object> params, MultipartFile file);
+    IndexJob submitAddIndex(Map<String, Object> params, MultipartFile file);
 
     /**
      * 通过参数创建索引
      *
      * @param params 参数
-     * @return void
+     * @return com.paulandcode.utils.BulkIndexer.Stats 写入统计
      */
-    void addIndexByParams(Map<String, Object> params);
+    BulkIndexer.Stats addIndexByParams(Map<String, Object> params);
 
     /**
      * 根据关键字检索内容
      *
      * @param params
-     * @return java.util.List<java.lang.String[]>
+     * @return com.paulandcode.utils.SearchResult
+     */
+    SearchResult search(Map<String, Object> params);
+
+    /**
+     * 结构化检索, 支持多检索域及附加的查询条件
+     *
+     * @param request 检索请求
+     * @return com.paulandcode.utils.SearchResult
+     */
+    SearchResult query(SearchRequest request);
+
+    /**
+     * 获得索引的域定义
+     *
+     * @param indexName 索引存储相对路径
+     * @return com.paulandcode.utils.IndexSchema 没有域定义时返回null
+     */
+    IndexSchema getSchema(String indexName);
+
+    /**
+     * 保存索引的域定义, 之后写入的数据按域定义构建域
+     *
+     * @param indexName 索引存储相对路径
+     * @param schema 域定义
+     * @return void
+     */
+    void saveSchema(String indexName, IndexSchema schema);
+
+    /**
+     * 列出索引根路径下所有索引的状态
+     *
+     * @return java.util.List<com.paulandcode.utils.IndexManager.IndexInfo>
+     */
+    List<IndexManager.IndexInfo> listIndexes();
+
+    /**
+     * 创建索引并保存分词器
+     *
+     * @param params indexName, analyzer或isChinese
+     * @return boolean 索引已存在时返回false
+     */
+    boolean createIndex(Map<String, Object> params);
+
+    /**
+     * 打开索引
+     *
+     * @param indexName 索引存储相对路径
+     * @return boolean 索引不存在时返回false
+     */
+    boolean openIndex(String indexName);
+
+    /**
+     * 提交并关闭索引
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    void closeIndex(String indexName);
+
+    /**
+     * 立即提交索引
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    void commitIndex(String indexName);
+
+    /**
+     * 刷新检索器
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    void refreshIndex(String indexName);
+
+    /**
+     * 统计索引的段
+     *
+     * @param params indexName, isChinese(或analyzer)
+     * @return com.paulandcode.utils.SegmentStats 索引不存在时返回null
+     */
+    SegmentStats getSegments(Map<String, Object> params);
+
+    /**
+     * 提交异步合并段的任务
+     *
+     * @param params indexName, isChinese(或analyzer), maxSegments(默认为1), onlyExpungeDeletes
+     * @return com.paulandcode.utils.IndexJob
+     */
+    IndexJob submitForceMerge(Map<String, Object> params);
+
+    /**
+     * 列出所有别名
+     *
+     * @return java.util.Map<java.lang.String, com.paulandcode.utils.IndexAliases.Alias>
+     */
+    Map<String, IndexAliases.Alias> listAliases();
+
+    /**
+     * 创建别名的新版本, 用于全量重建
+     *
+     * @param indexName 别名
+     * @return java.lang.String 新版本的索引名称
+     */
+    String createIndexVersion(String indexName);
+
+    /**
+     * 将别名切换到新版本
+     *
+     * @param indexName 别名
+     * @param version 新版本的索引名称
+     * @return java.lang.String 切换前的索引名称
      */
-    List<String[]> search(Map<String, Object> params);
+    String switchAlias(String indexName, String version);
+
+    /**
+     * 回滚到切换前的版本
+     *
+     * @param indexName 别名
+     * @return java.lang.String 回滚后的索引名称
+     */
+    String rollbackAlias(String indexName);
 
     /**
      * 自动补全
@@ -47,6 +187,14 @@ public interface LuceneService {
      */
     List<String> suggest(Map<String, Object> params);
 
+    /**
+     * 批量检索, 多个检索并发执行
+     *
+     * @param queries 各个检索
+     * @return java.util.List<com.paulandcode.utils.R> 与queries顺序一致的各个检索的响应信息
+     */
+    List<R> batch(List<BatchQuery> queries);
+
     /**
      * 删除索引
      *
@@ -55,6 +203,14 @@ public interface LuceneService {
      */
     void deleteIndex(Map<String, Object> params);
 
+    /**
+     * 批量删除, 按主键或查询条件删除, 只提交一次
+     *
+     * @param request 删除请求
+     * @return long 删除的数据条数
+     */
+    long deleteIndexes(DeleteRequest request);
+
     /**
      * 更新索引
      *
@@ -64,6 +220,23 @@ public interface LuceneService {
      */
     void updateIndex(Map<String, Object> params, MultipartFile file);
 
+    /**
+     * 提交异步任务更新索引, 立即返回任务
+     *
+     * @param params
+     * @param file
+     * @return com.paulandcode.utils.IndexJob
+     */
+    IndexJob submitUpdateIndex(Map<String, Object> params, MultipartFile file);
+
+    /**
+     * 查询异步任务
+     *
+     * @param id 任务编号
+     * @return com.paulandcode.utils.IndexJob 不存在或已过期时返回null
+     */
+    IndexJob getJob(String id);
+
     /**
      * 通过参数更新索引
      *
@@ -2,17 +2,42 @@ package com.paulandcode.service.impl;
 
 import com.alibaba.fastjson.JSON;
 import com.paulandcode.service.LuceneService;
+import com.paulandcode.utils.AnalyzerRegistry;
+import com.paulandcode.utils.BatchExecutor;
+import com.paulandcode.utils.BatchQuery;
+import com.paulandcode.utils.BulkIndexer;
 import com.paulandcode.utils.Data;
+import com.paulandcode.utils.DeleteRequest;
 import com.paulandcode.utils.FileUtils;
+import com.paulandcode.utils.IndexAliases;
+import com.paulandcode.utils.IndexJob;
+import com.paulandcode.utils.IndexJobExecutor;
+import com.paulandcode.utils.IndexManager;
+import com.paulandcode.utils.IndexSchema;
 import com.paulandcode.utils.LuceneUtils;
+import com.paulandcode.utils.R;
+import com.paulandcode.utils.SchemaRegistry;
+import com.paulandcode.utils.SearchRequest;
+import com.paulandcode.utils.SearchResult;
+import com.paulandcode.utils.SearchResultCache;
+import com.paulandcode.utils.SegmentStats;
+import com.paulandcode.utils.SuggesterRegistry;
 import org.apache.lucene.index.IndexWriter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * 检索服务
@@ -23,112 +48,388 @@ import java.util.Map;
  */
 @Service("luceneService")
 public class LuceneServiceImpl implements LuceneService {
+    private final IndexJobExecutor indexJobExecutor;
+
+    private final SearchResultCache searchResultCache;
+
+    private final BatchExecutor batchExecutor;
+
+    @Autowired
+    public LuceneServiceImpl(IndexJobExecutor indexJobExecutor, SearchResultCache searchResultCache, BatchExecutor batchExecutor) {
+        this.indexJobExecutor = indexJobExecutor;
+        this.searchResultCache = searchResultCache;
+        this.batchExecutor = batchExecutor;
+    }
+
     @Override
-    public void addIndex(Map<String, Object> params, MultipartFile file) {
-        String indexName = params.get("indexName").toString();
-        boolean isChinese = "1".equals(params.get("isChinese").toString());
-        String preTextColumnNums = params.get("textColumnNums").toString();
-        List<Integer> textColumnNums = new ArrayList<>();
-        if (!"".equals(preTextColumnNums)) {
-            String[] arrTextColumnNums = preTextColumnNums.split(",");
-            for (String textColumnNum : arrTextColumnNums) {
-                textColumnNums.add(Integer.parseInt(textColumnNum));
-            }
-        }
-        List<List<List<String>>> data = FileUtils.excelToList(file, String.class);
-        IndexWriter indexWriter = LuceneUtils.getIndexWriter(indexName, isChinese);
-        // 创建索引
-        LuceneUtils.addIndexByListList(indexWriter, data.get(0), textColumnNums);
+    public BulkIndexer.Stats addIndex(Map<String, Object> params, MultipartFile file) {
+        return runExcelTask(params, file, this::addIndexTask);
     }
 
     @Override
-    public void addIndexByParams(Map<String, Object> params) {
-        String indexName = params.get("indexName").toString();
-        boolean isChinese = "1".equals(params.get("isChinese").toString());
+    public IndexJob submitAddIndex(Map<String, Object> params, MultipartFile file) {
+        return submitExcelTask("addIndex", params, file, this::addIndexTask);
+    }
+
+    @Override
+    public BulkIndexer.Stats addIndexByParams(Map<String, Object> params) {
+        String indexName = IndexAliases.resolve(params.get("indexName").toString());
+        String analyzerName = AnalyzerRegistry.getRequestedName(params);
         String[] textColumns = params.get("textColumns").toString().split(",");
         String dataListString = params.get("dataListString").toString();
         List<Data> data = JSON.parseArray(dataListString, Data.class);
-        IndexWriter indexWriter = LuceneUtils.getIndexWriter(indexName, isChinese);
+        IndexWriter indexWriter = LuceneUtils.getIndexWriter(indexName, analyzerName);
         // 创建索引
-        LuceneUtils.addIndexByListMap(indexWriter, data, Arrays.asList(textColumns));
+        return LuceneUtils.addIndexByListMap(indexName, indexWriter, data, Arrays.asList(textColumns));
     }
 
     @Override
-    public List<String[]> search(Map<String, Object> params) {
-        String indexName = params.get("indexName").toString();
-        boolean paging = "1".equals(params.get("paging").toString());
-        boolean isChinese = "1".equals(params.get("isChinese").toString());
+    public SearchResult search(Map<String, Object> params) {
+        // 检索及分页游标使用请求的名称(可以是别名), 缓存使用实际的索引, 切换别名后不会混用新旧版本的结果
+        String requestIndexName = params.get("indexName").toString();
+        String indexName = IndexAliases.resolve(requestIndexName);
+        boolean paging = "1".equals(String.valueOf(params.get("paging")));
+        String cursor = params.get("cursor") == null ? null : params.get("cursor").toString();
+        String analyzerName = IndexManager.getAnalyzerName(indexName, AnalyzerRegistry.getRequestedName(params));
         String searchFieldName = params.get("searchFieldName").toString();
         String[] resultFieldNames = params.get("resultFieldNames").toString().split(",");
         String keyword = params.get("keyword").toString();
         int num = Integer.parseInt(params.get("num").toString());
         String preTag = params.get("preTag").toString();
         String postTag = params.get("postTag").toString();
-        return LuceneUtils.search(indexName, paging, isChinese, searchFieldName, resultFieldNames, keyword, num, preTag, postTag);
+        Supplier<SearchResult> loader = () -> LuceneUtils.search(requestIndexName, paging, cursor, analyzerName, searchFieldName, resultFieldNames, keyword, num, preTag, postTag);
+        // 只缓存第一页, 旧的Redis分页每次都要读写分页缓存, 不能使用缓存
+        if (!StringUtils.isEmpty(cursor) || paging) {
+            return loader.get();
+        }
+        return searchResultCache.get(indexName, analyzerName, SearchResult.class, loader,
+                "search", searchFieldName, params.get("resultFieldNames"), keyword, num, preTag, postTag);
+    }
+
+    @Override
+    public SearchResult query(SearchRequest request) {
+        if (StringUtils.isEmpty(request.getIndexName())) {
+            throw new RuntimeException("索引名称不能为空! ");
+        }
+        // 检索及分页游标使用请求的名称(可以是别名), 缓存使用实际的索引, 切换别名后不会混用新旧版本的结果
+        String indexName = IndexAliases.resolve(request.getIndexName());
+        // 使用索引保存的分词器解析关键词
+        request.setAnalyzer(IndexManager.getAnalyzerName(indexName,
+                StringUtils.isEmpty(request.getAnalyzer()) ? null : request.getAnalyzer()));
+        // 只缓存第一页
+        if (!StringUtils.isEmpty(request.getCursor())) {
+            return LuceneUtils.search(request);
+        }
+        return searchResultCache.get(indexName, request.getAnalyzer(), SearchResult.class,
+                () -> LuceneUtils.search(request), "query", JSON.toJSONString(request));
+    }
+
+    @Override
+    public IndexSchema getSchema(String indexName) {
+        return SchemaRegistry.get(IndexAliases.resolve(indexName));
+    }
+
+    @Override
+    public void saveSchema(String indexName, IndexSchema schema) {
+        indexName = IndexAliases.resolve(indexName);
+        SchemaRegistry.save(indexName, schema);
+        // 范围条件的检索方式可能变化
+        searchResultCache.invalidate(indexName);
+    }
+
+    @Override
+    public List<IndexManager.IndexInfo> listIndexes() {
+        return IndexManager.list();
+    }
+
+    @Override
+    public boolean createIndex(Map<String, Object> params) {
+        String indexName = IndexAliases.resolve(params.get("indexName").toString());
+        return IndexManager.create(indexName, AnalyzerRegistry.getName(params));
+    }
+
+    @Override
+    public boolean openIndex(String indexName) {
+        return IndexManager.open(IndexAliases.resolve(indexName));
+    }
+
+    @Override
+    public void closeIndex(String indexName) {
+        indexName = IndexAliases.resolve(indexName);
+        IndexManager.close(indexName);
+        searchResultCache.invalidate(indexName);
+    }
+
+    @Override
+    public void commitIndex(String indexName) {
+        IndexManager.commit(IndexAliases.resolve(indexName));
+    }
+
+    @Override
+    public void refreshIndex(String indexName) {
+        IndexManager.refresh(IndexAliases.resolve(indexName));
+    }
+
+    @Override
+    public SegmentStats getSegments(Map<String, Object> params) {
+        String indexName = IndexAliases.resolve(params.get("indexName").toString());
+        return IndexManager.getSegments(indexName);
+    }
+
+    @Override
+    public IndexJob submitForceMerge(Map<String, Object> params) {
+        String indexName = IndexAliases.resolve(params.get("indexName").toString());
+        int maxSegments = StringUtils.isEmpty(params.get("maxSegments")) ? 1 : Integer.parseInt(params.get("maxSegments").toString());
+        boolean onlyExpungeDeletes = "1".equals(String.valueOf(params.get("onlyExpungeDeletes")));
+        // 与写入任务在同一队列中依次执行, 合并期间不会有该索引的批量写入任务
+        return indexJobExecutor.submit(indexName, onlyExpungeDeletes ? "forceMergeDeletes" : "forceMerge", job -> {
+            long start = System.currentTimeMillis();
+            IndexManager.forceMerge(indexName, maxSegments, onlyExpungeDeletes);
+            return new BulkIndexer.Stats(0, 0, System.currentTimeMillis() - start);
+        });
+    }
+
+    @Override
+    public Map<String, IndexAliases.Alias> listAliases() {
+        return IndexAliases.list();
+    }
+
+    @Override
+    public String createIndexVersion(String indexName) {
+        return IndexAliases.createVersion(indexName);
+    }
+
+    @Override
+    public String switchAlias(String indexName, String version) {
+        return IndexAliases.switchTo(indexName, version);
+    }
+
+    @Override
+    public String rollbackAlias(String indexName) {
+        return IndexAliases.rollback(indexName);
     }
 
     @Override
     public List<String> suggest(Map<String, Object> params) {
-        String indexName = params.get("indexName").toString();
-        boolean isChinese = "1".equals(params.get("isChinese").toString());
+        String indexName = IndexAliases.resolve(params.get("indexName").toString());
+        String analyzerName = IndexManager.getAnalyzerName(indexName, AnalyzerRegistry.getRequestedName(params));
         String searchFieldName = params.get("searchFieldName").toString();
         String keyword = params.get("keyword").toString();
         int num = Integer.parseInt(params.get("num").toString());
-        boolean paging = "1".equals(params.get("paging").toString());
         String preTag = params.get("preTag").toString();
         String postTag = params.get("postTag").toString();
-        List<String[]> searchResult = LuceneUtils.search(indexName, paging, isChinese, searchFieldName, new String[]{searchFieldName}, keyword, num, preTag, postTag);
-        int count = searchResult.size();
-        List<String> result = new ArrayList<>(count);
-        for (String[] aSearchResult : searchResult) {
-            result.add(aSearchResult[0]);
+        String weightFieldName = StringUtils.isEmpty(params.get("weightFieldName")) ? null : params.get("weightFieldName").toString();
+        String contextFieldName = StringUtils.isEmpty(params.get("contextFieldName")) ? null : params.get("contextFieldName").toString();
+        Set<String> contexts = null;
+        if (!StringUtils.isEmpty(params.get("contexts"))) {
+            contexts = new HashSet<>(Arrays.asList(params.get("contexts").toString().split(",")));
         }
-        return result;
+        boolean allTermsRequired = !"0".equals(String.valueOf(params.get("allTermsRequired")));
+        Set<String> lookupContexts = contexts;
+        // 补全器在后台重新构建, 缓存的结果最多比补全器晚result-cache-ttl秒
+        // noinspection unchecked
+        return searchResultCache.get(indexName, analyzerName, List.class,
+                () -> SuggesterRegistry.lookup(indexName, analyzerName, searchFieldName, weightFieldName, contextFieldName,
+                        keyword, lookupContexts, num, allTermsRequired, preTag, postTag),
+                "suggest", searchFieldName, weightFieldName, contextFieldName, params.get("contexts"), keyword, num,
+                allTermsRequired, preTag, postTag);
+    }
+
+    @Override
+    public List<R> batch(List<BatchQuery> queries) {
+        if (queries == null || queries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Supplier<R>> tasks = new ArrayList<>(queries.size());
+        for (BatchQuery batchQuery : queries) {
+            String type = batchQuery.getType();
+            if ("search".equals(type)) {
+                tasks.add(() -> {
+                    SearchResult result = search(batchQuery.getParams());
+                    return R.ok().put("data", result.getData()).put("cursor", result.getCursor());
+                });
+            } else if ("query".equals(type)) {
+                tasks.add(() -> {
+                    SearchResult result = query(batchQuery.getRequest());
+                    return R.ok().put("data", result.getData()).put("cursor", result.getCursor()).put("facets", result.getFacets());
+                });
+            } else if ("suggest".equals(type)) {
+                tasks.add(() -> R.ok().put("data", suggest(batchQuery.getParams())));
+            } else {
+                throw new RuntimeException("不支持的检索类型: " + type + "! ");
+            }
+        }
+        return batchExecutor.execute(tasks);
     }
 
     @Override
     public void deleteIndex(Map<String, Object> params) {
-        String indexName = params.get("indexName").toString();
-        boolean isChinese = "1".equals(params.get("isChinese").toString());
+        String indexName = IndexAliases.resolve(params.get("indexName").toString());
         String fieldName = params.get("fieldName").toString();
         String keyword = params.get("keyword").toString();
-        IndexWriter indexWriter = LuceneUtils.getIndexWriter(indexName, isChinese);
+        IndexWriter indexWriter = LuceneUtils.getIndexWriter(indexName);
         LuceneUtils.deleteIndex(indexWriter, fieldName, keyword);
     }
 
     @Override
-    public void updateIndex(Map<String, Object> params, MultipartFile file) {
-        String indexName = params.get("indexName").toString();
-        boolean isChinese = "1".equals(params.get("isChinese").toString());
-        String textColumnNum = params.get("textColumnNums").toString();
-        int keywordColumnNum = Integer.parseInt(params.get("keywordColumnNum").toString());
-        List<Integer> textColumnNums = new ArrayList<>();
-        if (!"".equals(textColumnNum)) {
-            String[] stringTextColumnNums = textColumnNum.split(",");
-            for (String stringTextColumnNum :stringTextColumnNums) {
-                textColumnNums.add(Integer.parseInt(stringTextColumnNum));
-            }
+    public long deleteIndexes(DeleteRequest request) {
+        if (StringUtils.isEmpty(request.getIndexName())) {
+            throw new RuntimeException("索引名称不能为空! ");
+        }
+        request.setIndexName(IndexAliases.resolve(request.getIndexName()));
+        long count = LuceneUtils.deleteIndex(request);
+        if (count > 0) {
+            searchResultCache.invalidate(request.getIndexName());
         }
-        List<List<List<String>>> data = FileUtils.excelToList(file, String.class);
-        IndexWriter indexWriter = LuceneUtils.getIndexWriter(indexName, isChinese);
-        LuceneUtils.updateIndexByListList(indexWriter, keywordColumnNum, data.get(0), textColumnNums);
+        return count;
+    }
+
+    @Override
+    public void updateIndex(Map<String, Object> params, MultipartFile file) {
+        runExcelTask(params, file, this::updateIndexTask);
+    }
+
+    @Override
+    public IndexJob submitUpdateIndex(Map<String, Object> params, MultipartFile file) {
+        return submitExcelTask("updateIndex", params, file, this::updateIndexTask);
+    }
+
+    @Override
+    public IndexJob getJob(String id) {
+        return indexJobExecutor.get(id);
     }
 
     @Override
     public void updateIndexByParams(Map<String, Object> params) {
-        String indexName = params.get("indexName").toString();
-        boolean isChinese = "1".equals(params.get("isChinese").toString());
+        String indexName = IndexAliases.resolve(params.get("indexName").toString());
+        String analyzerName = AnalyzerRegistry.getRequestedName(params);
         String[] textColumns = params.get("textColumns").toString().split(",");
         String keywordColumn = params.get("keywordColumn").toString();
         String dataListString = params.get("dataListString").toString();
         List<Data> data = JSON.parseArray(dataListString, Data.class);
-        IndexWriter indexWriter = LuceneUtils.getIndexWriter(indexName, isChinese);
-        LuceneUtils.updateIndexByListMap(indexWriter, keywordColumn, data, Arrays.asList(textColumns));
+        IndexWriter indexWriter = LuceneUtils.getIndexWriter(indexName, analyzerName);
+        LuceneUtils.updateIndexByListMap(indexName, indexWriter, keywordColumn, data, Arrays.asList(textColumns));
     }
 
     @Override
     public void deleteTheWholeIndex(Map<String, Object> params) {
         String indexName = params.get("indexName").toString();
+        String current = IndexAliases.resolve(indexName);
         LuceneUtils.deleteTheWholeIndex(indexName);
+        searchResultCache.invalidate(current);
+    }
+
+    /**
+     * 同步执行通过Excel写入的任务, 附件保存为临时文件, 任务结束后删除
+     *
+     * @param params 请求参数
+     * @param file Excel文件
+     * @param taskBuilder 根据参数及临时文件创建任务
+     * @return com.paulandcode.utils.BulkIndexer.Stats
+     */
+    private BulkIndexer.Stats runExcelTask(Map<String, Object> params, MultipartFile file,
+                                           BiFunction<Map<String, Object>, File, Function<IndexJob, BulkIndexer.Stats>> taskBuilder) {
+        File tempFile = FileUtils.saveToTempFile(file);
+        try {
+            return taskBuilder.apply(params, tempFile).apply(null);
+        } finally {
+            FileUtils.deleteAll(tempFile);
+        }
+    }
+
+    /**
+     * 提交通过Excel写入的异步任务, 附件在提交时保存为临时文件, 任务结束后删除. 参数错误或任务被拒绝时立即删除
+     *
+     * @param type 任务类型
+     * @param params 请求参数
+     * @param file Excel文件
+     * @param taskBuilder 根据参数及临时文件创建任务
+     * @return com.paulandcode.utils.IndexJob
+     */
+    private IndexJob submitExcelTask(String type, Map<String, Object> params, MultipartFile file,
+                                     BiFunction<Map<String, Object>, File, Function<IndexJob, BulkIndexer.Stats>> taskBuilder) {
+        String indexName = IndexAliases.resolve(params.get("indexName").toString());
+        File tempFile = FileUtils.saveToTempFile(file);
+        try {
+            Function<IndexJob, BulkIndexer.Stats> task = taskBuilder.apply(params, tempFile);
+            return indexJobExecutor.submit(indexName, type, job -> {
+                try {
+                    return task.apply(job);
+                } finally {
+                    FileUtils.deleteAll(tempFile);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 任务未提交, 不会再执行, 临时文件需要在这里删除
+            FileUtils.deleteAll(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * 通过Excel创建索引的任务, 参数在创建任务时解析
+     *
+     * @param params indexName, isChinese(或analyzer), textColumnNums
+     * @param tempFile 保存附件的临时文件
+     * @return java.util.function.Function 参数为异步任务, 同步执行时为null
+     */
+    private Function<IndexJob, BulkIndexer.Stats> addIndexTask(Map<String, Object> params, File tempFile) {
+        String indexName = IndexAliases.resolve(params.get("indexName").toString());
+        String analyzerName = AnalyzerRegistry.getRequestedName(params);
+        List<Integer> textColumnNums = parseColumnNums(params.get("textColumnNums").toString());
+        return job -> {
+            IndexWriter indexWriter = getIndexWriter(indexName, analyzerName);
+            // 流式读取Excel并多线程创建索引
+            return LuceneUtils.addIndexByExcel(indexName, indexWriter, tempFile, textColumnNums, job);
+        };
+    }
+
+    /**
+     * 通过Excel更新索引的任务, 参数在创建任务时解析
+     *
+     * @param params indexName, isChinese(或analyzer), textColumnNums, keywordColumnNum
+     * @param tempFile 保存附件的临时文件
+     * @return java.util.function.Function 参数为异步任务, 同步执行时为null
+     */
+    private Function<IndexJob, BulkIndexer.Stats> updateIndexTask(Map<String, Object> params, File tempFile) {
+        String indexName = IndexAliases.resolve(params.get("indexName").toString());
+        String analyzerName = AnalyzerRegistry.getRequestedName(params);
+        List<Integer> textColumnNums = parseColumnNums(params.get("textColumnNums").toString());
+        int keywordColumnNum = Integer.parseInt(params.get("keywordColumnNum").toString());
+        return job -> {
+            IndexWriter indexWriter = getIndexWriter(indexName, analyzerName);
+            return LuceneUtils.updateIndexByExcel(indexName, indexWriter, tempFile, keywordColumnNum, textColumnNums, job);
+        };
+    }
+
+    /**
+     * 获得写入数据的索引写入流, 打开失败时抛出异常, 使异步任务以失败结束
+     *
+     * @param indexName 索引存储相对路径
+     * @param analyzerName Text形式索引使用的分词器名称
+     * @return org.apache.lucene.index.IndexWriter
+     */
+    private IndexWriter getIndexWriter(String indexName, String analyzerName) {
+        IndexWriter indexWriter = LuceneUtils.getIndexWriter(indexName, analyzerName);
+        if (indexWriter == null) {
+            throw new RuntimeException("打开索引" + indexName + "失败! ");
+        }
+        return indexWriter;
+    }
+
+    /**
+     * 解析以逗号隔开的列下标
+     *
+     * @param columnNums 如: 0,2,3
+     * @return java.util.List<java.lang.Integer>
+     */
+    private List<Integer> parseColumnNums(String columnNums) {
+        List<Integer> result = new ArrayList<>();
+        if (!"".equals(columnNums)) {
+            for (String columnNum : columnNums.split(",")) {
+                result.add(Integer.parseInt(columnNum));
+            }
+        }
+        return result;
     }
 }
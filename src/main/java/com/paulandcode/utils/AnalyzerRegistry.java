@@ -0,0 +1,144 @@
+package com.paulandcode.utils;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.cjk.CJKAnalyzer;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.core.SimpleAnalyzer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Description: 分词器注册表, 进程内每种分词器只创建一个实例, 供所有线程共享.
+ *  SmartChineseAnalyzer在创建时会加载词典及停用词, 所以在启动时预先创建并预热.
+ *  可以通过register注册新的分词器, 之后在请求参数analyzer中指定其名称即可使用.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 13:40
+ */
+@Component
+public class AnalyzerRegistry {
+    /**
+     * 中文分词器
+     */
+    public static final String SMART_CN = "smartcn";
+
+    /**
+     * 西文分词器
+     */
+    public static final String SIMPLE = "simple";
+
+    /**
+     * 分词器名称与分词器的对应关系
+     */
+    private static final Map<String, Analyzer> ANALYZERS = new ConcurrentHashMap<>();
+
+    /**
+     * 注册内置的分词器并预热
+     *
+     * @return void
+     */
+    @PostConstruct
+    public void init() {
+        register(SMART_CN, new SmartChineseAnalyzer());
+        register(SIMPLE, new SimpleAnalyzer());
+        register("standard", new StandardAnalyzer());
+        register("cjk", new CJKAnalyzer());
+        register("whitespace", new WhitespaceAnalyzer());
+        register("keyword", new KeywordAnalyzer());
+    }
+
+    /**
+     * Spring容器关闭时关闭所有分词器
+     *
+     * @return void
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Analyzer analyzer : ANALYZERS.values()) {
+            analyzer.close();
+        }
+        ANALYZERS.clear();
+    }
+
+    /**
+     * 注册分词器, 同名的分词器会被替换. 注册时会预热一次.
+     *
+     * @param name 分词器名称
+     * @param analyzer 分词器, 必须是线程安全的
+     * @return void
+     */
+    public static void register(String name, Analyzer analyzer) {
+        warmUp(analyzer);
+        ANALYZERS.put(name, analyzer);
+    }
+
+    /**
+     * 根据名称获得分词器
+     *
+     * @param name 分词器名称
+     * @return org.apache.lucene.analysis.Analyzer
+     */
+    public static Analyzer get(String name) {
+        Analyzer analyzer = ANALYZERS.get(name);
+        if (analyzer == null) {
+            throw new RuntimeException("不支持的分词器: " + name);
+        }
+        return analyzer;
+    }
+
+    /**
+     * 根据请求参数获得分词器名称, 优先使用参数analyzer, 否则根据参数isChinese选择中文或西文分词器
+     *
+     * @param params 请求参数
+     * @return java.lang.String
+     */
+    public static String getName(Map<String, Object> params) {
+        Object analyzer = params.get("analyzer");
+        if (analyzer != null && !StringUtils.isEmpty(analyzer.toString())) {
+            return analyzer.toString();
+        }
+        Object isChinese = params.get("isChinese");
+        return isChinese != null && "1".equals(isChinese.toString()) ? SMART_CN : SIMPLE;
+    }
+
+    /**
+     * 获得请求参数中指定的分词器名称, 没有传analyzer及isChinese时返回null, 由索引保存的分词器决定
+     *
+     * @param params 请求参数
+     * @return java.lang.String
+     */
+    public static String getRequestedName(Map<String, Object> params) {
+        if (StringUtils.isEmpty(params.get("analyzer")) && StringUtils.isEmpty(params.get("isChinese"))) {
+            return null;
+        }
+        return getName(params);
+    }
+
+    /**
+     * 预热分词器, 使其加载词典等资源
+     *
+     * @param analyzer 分词器
+     * @return void
+     */
+    private static void warmUp(Analyzer analyzer) {
+        try (TokenStream tokenStream = analyzer.tokenStream("", "Lucene全文检索预热")) {
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                // 只需要走一遍分词流程
+            }
+            tokenStream.end();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.paulandcode.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * @Description: 批量检索执行器.
+ *  一次请求中的多个检索在固定大小的线程池中并发执行, 共享各索引的近实时检索器, 总耗时接近其中最慢的一个检索.
+ *  线程池队列满时由请求线程自己执行, 不会无限排队. 超过batchTimeout毫秒未完成的检索返回超时.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 23:25
+ */
+@Component
+public class BatchExecutor {
+    /**
+     * 执行检索的线程数
+     */
+    @Value("${spring.lucene.batch-threads}")
+    private int batchThreads;
+
+    /**
+     * 等待执行的检索队列长度
+     */
+    @Value("${spring.lucene.batch-queue-capacity}")
+    private int batchQueueCapacity;
+
+    /**
+     * 一次批量检索允许的最大检索数
+     */
+    @Value("${spring.lucene.batch-max-queries}")
+    private int batchMaxQueries;
+
+    /**
+     * 一次批量检索的超时时间, 单位: 毫秒.
+     */
+    @Value("${spring.lucene.batch-timeout}")
+    private long batchTimeout;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNum = new AtomicInteger();
+        executor = new ThreadPoolExecutor(batchThreads, batchThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchQueueCapacity),
+                r -> new Thread(r, "lucene-batch-" + threadNum.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 并发执行多个检索
+     *
+     * @param tasks 各个检索, 返回该检索的响应信息
+     * @return java.util.List<com.paulandcode.utils.R> 与tasks顺序一致的各个检索的响应信息, 每个都带有耗时took(毫秒)
+     */
+    public List<R> execute(List<Supplier<R>> tasks) {
+        if (tasks.size() > batchMaxQueries) {
+            throw new RuntimeException("批量检索最多" + batchMaxQueries + "个检索! ");
+        }
+        List<Future<R>> futures = new ArrayList<>(tasks.size());
+        for (Supplier<R> task : tasks) {
+            futures.add(executor.submit(() -> {
+                long start = System.nanoTime();
+                R r;
+                try {
+                    r = task.get();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    r = R.error(e.getMessage() == null ? e.toString() : e.getMessage());
+                }
+                return r.put("took", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchTimeout);
+        List<R> results = new ArrayList<>(futures.size());
+        for (Future<R> future : futures) {
+            try {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                results.add(R.error("检索超时! ").put("took", batchTimeout));
+            } catch (ExecutionException e) {
+                results.add(R.error(String.valueOf(e.getCause())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                results.add(R.error("检索被中断! "));
+            }
+        }
+        return results;
+    }
+}
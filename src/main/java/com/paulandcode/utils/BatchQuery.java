@@ -0,0 +1,54 @@
+package com.paulandcode.utils;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * @Description: 批量检索中的一个检索.
+ *  type为search或suggest时params与对应接口的请求参数相同, type为query时request与结构化检索的请求体相同.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 23:20
+ */
+public class BatchQuery implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 检索类型: search, query, suggest
+     */
+    private String type;
+
+    /**
+     * search及suggest的请求参数
+     */
+    private Map<String, Object> params;
+
+    /**
+     * query的检索请求
+     */
+    private SearchRequest request;
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Map<String, Object> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, Object> params) {
+        this.params = params;
+    }
+
+    public SearchRequest getRequest() {
+        return request;
+    }
+
+    public void setRequest(SearchRequest request) {
+        this.request = request;
+    }
+}
@@ -0,0 +1,347 @@
+package com.paulandcode.utils;
+
+import com.paulandcode.config.LuceneProperties;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+/**
+ * @Description: 多线程批量写入索引.
+ *  调用add的线程负责解析数据, 数据放入有界队列后由多个写入线程构建Document, 并攒够batchSize条后调用addDocuments.
+ *  队列满时add会等待, 所以解析速度不会超过写入速度, 内存中最多保留queueCapacity + indexThreads * batchSize条数据.
+ *  写入线程来自所有索引共享的有界线程池(IndexWriterRegistry), 不再每次批量写入创建线程池.
+ *  指定keyBuilder时为更新模式, 每条数据按keyBuilder生成的Term更新. 更新模式只使用一个写入线程, 按放入的顺序更新,
+ *  同一主键出现多次时最后放入的一条生效. 解析仍在调用add的线程中进行.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 15:42
+ */
+public class BulkIndexer<T> {
+    /**
+     * 队列结束标记
+     */
+    private static final Object POISON = new Object();
+
+    private final String indexName;
+    private final IndexWriter indexWriter;
+    private final Function<T, Document> docBuilder;
+    private final Function<T, Term> keyBuilder;
+    private final int batchSize;
+    private final BlockingQueue<Object> queue;
+    private final int threads;
+
+    /**
+     * 提交到共享线程池的写入任务, 共享线程池关闭时未执行的任务会被取消
+     */
+    private final List<Future<?>> workers;
+
+    /**
+     * 已解析的条数
+     */
+    private final AtomicLong parsed = new AtomicLong();
+
+    /**
+     * 已写入的条数
+     */
+    private final AtomicLong indexed = new AtomicLong();
+
+    /**
+     * 写入线程中出现的第一个异常
+     */
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    private final long startTime = System.currentTimeMillis();
+
+    /**
+     * 创建后写入线程即开始工作, 必须调用finish结束
+     *
+     * @param indexName 索引存储相对路径, 用于输出统计信息
+     * @param indexWriter 索引写入流
+     * @param docBuilder 将一条数据构建为Document, 在写入线程中调用, 必须是线程安全的
+     * @param properties 索引配置
+     */
+    public BulkIndexer(String indexName, IndexWriter indexWriter, Function<T, Document> docBuilder, LuceneProperties.IndexProperties properties) {
+        this(indexName, indexWriter, docBuilder, null, properties);
+    }
+
+    /**
+     * 创建后写入线程即开始工作, 必须调用finish结束
+     *
+     * @param indexName 索引存储相对路径, 用于输出统计信息
+     * @param indexWriter 索引写入流
+     * @param docBuilder 将一条数据构建为Document, 在写入线程中调用, 必须是线程安全的
+     * @param keyBuilder 生成一条数据的唯一主键, 不为null时按主键更新, 否则新增
+     * @param properties 索引配置
+     */
+    public BulkIndexer(String indexName, IndexWriter indexWriter, Function<T, Document> docBuilder, Function<T, Term> keyBuilder, LuceneProperties.IndexProperties properties) {
+        this(indexName, indexWriter, docBuilder, keyBuilder, properties, IndexWriterRegistry.getIndexExecutor());
+    }
+
+    /**
+     * 创建后写入线程即开始工作, 必须调用finish结束
+     *
+     * @param indexName 索引存储相对路径, 用于输出统计信息
+     * @param indexWriter 索引写入流
+     * @param docBuilder 将一条数据构建为Document, 在写入线程中调用, 必须是线程安全的
+     * @param keyBuilder 生成一条数据的唯一主键, 不为null时按主键更新, 否则新增
+     * @param properties 索引配置
+     * @param executor 执行写入任务的线程池, 不会被关闭
+     */
+    public BulkIndexer(String indexName, IndexWriter indexWriter, Function<T, Document> docBuilder, Function<T, Term> keyBuilder,
+                       LuceneProperties.IndexProperties properties, ExecutorService executor) {
+        this.indexName = indexName;
+        this.indexWriter = indexWriter;
+        this.docBuilder = docBuilder;
+        this.keyBuilder = keyBuilder;
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        // 多个线程并发更新同一主键时最终保留哪一条不确定, 所以更新模式只使用一个写入线程
+        this.threads = keyBuilder == null ? Math.max(1, properties.getIndexThreads()) : 1;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.workers = new ArrayList<>(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                // 共享线程池繁忙时写入任务先排队, 队列中的数据等到有空闲线程时再写入
+                workers.add(executor.submit(this::work));
+            }
+        } catch (RejectedExecutionException e) {
+            // 已提交的写入任务等不到结束标记, 取消后抛出异常, 不需要再调用finish
+            for (Future<?> worker : workers) {
+                worker.cancel(true);
+            }
+            throw new RuntimeException("批量写入线程池已关闭, 不能写入索引" + indexName + "! ", e);
+        }
+    }
+
+    /**
+     * 放入一条数据, 队列满时等待
+     *
+     * @param row 一条数据
+     * @return void
+     */
+    public void add(T row) {
+        checkError();
+        try {
+            while (!queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                // 写入线程出错或写入任务被取消后不再等待, 否则会一直阻塞
+                checkCancelled();
+                checkError();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("批量写入被中断! ");
+        }
+        parsed.incrementAndGet();
+    }
+
+    /**
+     * 数据已全部放入, 等待写入线程处理完毕
+     *
+     * @return com.paulandcode.utils.BulkIndexer.Stats
+     */
+    public Stats finish() throws IOException {
+        try {
+            // 写入线程出错后仍会消费队列直到结束标记, 写入任务都已结束(被取消)时不再放入
+            for (int i = 0; i < threads && !isWorkersDone(); i++) {
+                while (!queue.offer(POISON, 100, TimeUnit.MILLISECONDS)) {
+                    if (isWorkersDone()) {
+                        break;
+                    }
+                }
+            }
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (CancellationException e) {
+                    error.compareAndSet(null, e);
+                } catch (ExecutionException e) {
+                    error.compareAndSet(null, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Future<?> worker : workers) {
+                worker.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new IOException("批量写入被中断! ", e);
+        }
+        Throwable throwable = error.get();
+        if (throwable != null) {
+            throw new IOException("批量写入索引" + indexName + "失败! ", throwable);
+        }
+        Stats stats = getStats();
+        System.out.println("索引" + indexName + "批量写入" + stats.getIndexed() + "条, 耗时" + stats.getMillis() + "毫秒, 速度" + stats.getDocsPerSecond() + "条/秒");
+        return stats;
+    }
+
+    /**
+     * 获得当前的写入进度
+     *
+     * @return com.paulandcode.utils.BulkIndexer.Stats
+     */
+    public Stats getStats() {
+        return new Stats(parsed.get(), indexed.get(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 写入线程: 从队列取出数据构建Document, 攒够batchSize条后写入
+     */
+    @SuppressWarnings("unchecked")
+    private void work() {
+        List<Document> batch = new ArrayList<>(batchSize);
+        List<Term> keys = keyBuilder == null ? null : new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                Object row = queue.take();
+                if (row == POISON) {
+                    break;
+                }
+                if (error.get() != null) {
+                    // 已经出错, 只消费队列, 使解析线程尽快结束
+                    continue;
+                }
+                batch.add(docBuilder.apply((T) row));
+                if (keys != null) {
+                    keys.add(keyBuilder.apply((T) row));
+                }
+                if (batch.size() >= batchSize) {
+                    flush(batch, keys);
+                }
+            }
+            if (error.get() == null) {
+                flush(batch, keys);
+            }
+        } catch (Throwable e) {
+            error.compareAndSet(null, e);
+            // 继续消费到结束标记, 避免finish一直等待
+            drain();
+        }
+    }
+
+    private void flush(List<Document> batch, List<Term> keys) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Lock lock = IndexWriterRegistry.getLock(indexWriter).readLock();
+        lock.lock();
+        try {
+            if (keys == null) {
+                indexWriter.addDocuments(batch);
+            } else {
+                // 更新没有批量接口, 逐条按主键更新
+                for (int i = 0; i < batch.size(); i++) {
+                    indexWriter.updateDocument(keys.get(i), batch.get(i));
+                }
+                keys.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+        indexed.addAndGet(batch.size());
+        IndexWriterRegistry.afterWrite(indexWriter, batch.size());
+        batch.clear();
+    }
+
+    private void drain() {
+        try {
+            while (queue.take() != POISON) {
+                // 丢弃剩余数据
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 写入任务是否都已结束, 包括未执行就被取消的任务
+     */
+    private boolean isWorkersDone() {
+        for (Future<?> worker : workers) {
+            if (!worker.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 共享线程池关闭时排队中的写入任务被取消, 不会执行, 队列中的数据不会被写入
+     */
+    private void checkCancelled() {
+        for (Future<?> worker : workers) {
+            if (worker.isCancelled()) {
+                error.compareAndSet(null, new CancellationException("写入任务已被取消"));
+                return;
+            }
+        }
+    }
+
+    private void checkError() {
+        Throwable throwable = error.get();
+        if (throwable != null) {
+            throw new RuntimeException("批量写入索引" + indexName + "失败! ", throwable);
+        }
+    }
+
+    /**
+     * 批量写入的统计信息
+     */
+    public static class Stats {
+        /**
+         * 已解析的条数
+         */
+        private final long parsed;
+
+        /**
+         * 已写入的条数
+         */
+        private final long indexed;
+
+        /**
+         * 已耗时, 单位: 毫秒.
+         */
+        private final long millis;
+
+        public Stats(long parsed, long indexed, long millis) {
+            this.parsed = parsed;
+            this.indexed = indexed;
+            this.millis = millis;
+        }
+
+        public long getParsed() {
+            return parsed;
+        }
+
+        public long getIndexed() {
+            return indexed;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        /**
+         * 每秒写入的条数
+         *
+         * @return long
+         */
+        public long getDocsPerSecond() {
+            return millis == 0 ? indexed : indexed * 1000 / millis;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.paulandcode.utils;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.CustomScoreProvider;
+import org.apache.lucene.queries.CustomScoreQuery;
+import org.apache.lucene.queries.function.FunctionQuery;
+import org.apache.lucene.queries.function.valuesource.LongFieldSource;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * @Description: 点击权重. 每条数据的权重保存在可更新的数字DocValues域(_weight)中, 写入索引时为0.
+ *  每次点击只在内存中累加, 每隔flushInterval秒通过updateNumericDocValue批量写入, 不再删除并重新写入整条数据.
+ *  写入时先读出当前权重再写入累加后的值, 同一索引的写入(定时写入, 提交或关闭前写入)依次进行, 未写入成功的增量放回下次继续写入.
+ *  写入权重不会打开已关闭的索引, 关闭后到达的增量保留到索引再次打开, 索引被删除时丢弃.
+ *  检索时的得分为: 相关度 * (1 + weightFactor * ln(1 + 权重)).
+ *  注意: 通过updateIndex更新整条数据时权重会重置为0, 升级前创建的索引没有权重域, 需要重新创建后才能增加权重.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 21:00
+ */
+@Component
+@DependsOn({"indexWriterRegistry", "searcherRegistry"})
+public class ClickWeights {
+    /**
+     * 权重域名称
+     */
+    public static final String WEIGHT_FIELD = "_weight";
+
+    /**
+     * 权重写入索引的时间间隔, 单位: 秒.
+     */
+    private static long flushInterval;
+
+    /**
+     * 权重对得分的影响系数, 不大于0时检索不使用权重
+     */
+    private static double weightFactor;
+
+    /**
+     * 索引名称与其未写入的权重增量的对应关系
+     */
+    private static final Map<String, Pending> PENDING = new ConcurrentHashMap<>();
+
+    /**
+     * 索引名称与其写入锁的对应关系
+     */
+    private static final Map<String, Object> FLUSH_LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * 定时写入权重的线程
+     */
+    private static ScheduledExecutorService scheduler;
+
+    @Value("${spring.lucene.weight-flush-interval}")
+    public void setFlushInterval(long flushInterval) {
+        ClickWeights.flushInterval = flushInterval;
+    }
+
+    @Value("${spring.lucene.weight-factor}")
+    public void setWeightFactor(double weightFactor) {
+        ClickWeights.weightFactor = weightFactor;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lucene-weight");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(ClickWeights::flushAll, flushInterval, flushInterval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Spring容器关闭时写入所有未写入的权重, 通过DependsOn保证在写入流关闭前执行
+     *
+     * @return void
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flushAll();
+    }
+
+    /**
+     * 增加权重, 只在内存中累加
+     *
+     * @param indexName 索引存储相对路径
+     * @param key 唯一主键, 必须是String形式索引的域
+     * @param increment 增加的权重
+     * @return void
+     */
+    public static void add(String indexName, Term key, long increment) {
+        // 在compute中累加, 与写入时的remove互斥, 不会丢失增量
+        PENDING.compute(indexName, (name, pending) -> {
+            if (pending == null) {
+                pending = new Pending();
+            }
+            pending.increments.merge(key, increment, Long::sum);
+            return pending;
+        });
+    }
+
+    /**
+     * 在查询的得分中加入权重
+     *
+     * @param query 查询
+     * @return org.apache.lucene.search.Query weightFactor不大于0时返回原查询
+     */
+    public static Query boost(Query query) {
+        if (weightFactor <= 0) {
+            return query;
+        }
+        return new CustomScoreQuery(query, new FunctionQuery(new LongFieldSource(WEIGHT_FIELD))) {
+            @Override
+            protected CustomScoreProvider getCustomScoreProvider(LeafReaderContext context) {
+                return new CustomScoreProvider(context) {
+                    @Override
+                    public float customScore(int doc, float subQueryScore, float valSrcScore) {
+                        return (float) (subQueryScore * (1 + weightFactor * Math.log1p(valSrcScore)));
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * 写入所有索引未写入的权重
+     *
+     * @return void
+     */
+    public static void flushAll() {
+        for (String indexName : PENDING.keySet()) {
+            try {
+                flushLocked(indexName);
+            } catch (RuntimeException e) {
+                // 不能抛出异常, 否则定时写入任务会被取消
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 写入某个索引未写入的权重, 如关闭索引前
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public static void flush(String indexName) {
+        try {
+            flushLocked(indexName);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 丢弃某个索引未写入的权重, 关闭或删除索引时调用
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public static void evict(String indexName) {
+        synchronized (FLUSH_LOCKS.computeIfAbsent(indexName, name -> new Object())) {
+            PENDING.remove(indexName);
+        }
+    }
+
+    /**
+     * 持有索引的写入锁写入. 写入是先读后写, 并发写入同一索引时后写入的一方可能读到旧的权重而覆盖另一方的增量
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    private static void flushLocked(String indexName) {
+        synchronized (FLUSH_LOCKS.computeIfAbsent(indexName, name -> new Object())) {
+            flush(indexName, PENDING.remove(indexName));
+        }
+    }
+
+    private static void flush(String indexName, Pending pending) {
+        if (pending == null || pending.increments.isEmpty()) {
+            return;
+        }
+        // 不打开已关闭的索引, 否则关闭后到达的点击会重新打开索引, 或在已删除的文件夹中创建空索引
+        IndexWriter indexWriter = IndexWriterRegistry.getIfOpen(indexName);
+        if (indexWriter == null) {
+            restore(indexName, pending);
+            return;
+        }
+        int count = 0;
+        IndexSearcher searcher = null;
+        Lock lock = IndexWriterRegistry.getLock(indexWriter).readLock();
+        lock.lock();
+        try {
+            // 持有读锁时写入流不会被关闭, 等待读锁期间已关闭时不再写入
+            if (!indexWriter.isOpen()) {
+                return;
+            }
+            // 先刷新检索器, 读取到上一次写入的权重
+            SearcherRegistry.refresh(indexName);
+            searcher = SearcherRegistry.acquire(indexName);
+            if (searcher == null) {
+                return;
+            }
+            Iterator<Map.Entry<Term, Long>> iterator = pending.increments.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Term, Long> entry = iterator.next();
+                long weight = getWeight(searcher, entry.getKey());
+                if (weight >= 0) {
+                    indexWriter.updateNumericDocValue(entry.getKey(), WEIGHT_FIELD, weight + entry.getValue());
+                    count++;
+                }
+                iterator.remove();
+            }
+        } catch (IllegalArgumentException e) {
+            // 没有权重域的旧索引会抛出IllegalArgumentException, 重新创建索引前每次写入都会失败, 丢弃增量
+            e.printStackTrace();
+            pending.increments.clear();
+        } catch (IOException | AlreadyClosedException e) {
+            e.printStackTrace();
+        } finally {
+            lock.unlock();
+            SearcherRegistry.release(searcher);
+            IndexWriterRegistry.afterWrite(indexWriter, count);
+            // 未写入的增量放回, 下次继续写入
+            restore(indexName, pending);
+        }
+    }
+
+    /**
+     * 将未写入的增量合并回待写入的增量, 索引已被删除时丢弃. 在flushLocked中调用, 与add互斥
+     *
+     * @param indexName 索引存储相对路径
+     * @param pending 未写入的增量
+     * @return void
+     */
+    private static void restore(String indexName, Pending pending) {
+        if (pending.increments.isEmpty() || !IndexManager.exists(indexName)) {
+            return;
+        }
+        PENDING.compute(indexName, (name, current) -> {
+            if (current == null) {
+                return pending;
+            }
+            pending.increments.forEach((key, increment) -> current.increments.merge(key, increment, Long::sum));
+            return current;
+        });
+    }
+
+    /**
+     * 读取某条数据当前的权重
+     *
+     * @return long 数据不存在时返回-1
+     */
+    private static long getWeight(IndexSearcher searcher, Term key) throws IOException {
+        TopDocs docs = searcher.search(new TermQuery(key), 1);
+        if (docs.scoreDocs.length == 0) {
+            return -1;
+        }
+        int doc = docs.scoreDocs[0].doc;
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+        NumericDocValues values = DocValues.getNumeric(leaf.reader(), WEIGHT_FIELD);
+        return values.get(doc - leaf.docBase);
+    }
+
+    /**
+     * 某个索引未写入的权重增量
+     */
+    private static class Pending {
+        private final Map<Term, Long> increments = new HashMap<>();
+    }
+}
@@ -0,0 +1,306 @@
+package com.paulandcode.utils;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * @Description: 分页游标的编码与解码.
+ *  游标中包含上一页最后一条结果(ScoreDoc, 按域排序时为带排序值的FieldDoc)及检索器版本, 使用HMAC签名后以URL安全的Base64返回给客户端,
+ *  客户端请求下一页时原样传回, 服务端不需要保存任何分页状态.
+ *  签名时会加入索引名称及检索条件, 所以游标只能用于同一个检索. 通过别名检索时签名使用别名,
+ *  游标中另外保存实际的索引名称, 切换别名后已开始的分页仍在原来的版本上继续.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 17:35
+ */
+@Component
+public class CursorCodec {
+    /**
+     * 游标格式版本, 按相关度排序
+     */
+    private static final byte FORMAT = 1;
+
+    /**
+     * 游标格式版本, 按域排序, 在ScoreDoc之后保存各排序值
+     */
+    private static final byte FORMAT_SORTED = 2;
+
+    /**
+     * 与上面的格式版本组合, 在ScoreDoc之后保存实际的索引名称
+     */
+    private static final byte WITH_INDEX = 0x10;
+
+    /**
+     * 排序值的类型标记
+     */
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte FLOAT = 3;
+    private static final byte INT = 4;
+    private static final byte BYTES = 5;
+
+    /**
+     * 签名截取的字节数
+     */
+    private static final int MAC_LENGTH = 12;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * 签名密钥
+     */
+    private static SecretKeySpec key;
+
+    /**
+     * Mac不是线程安全的, 每个线程一个
+     */
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    /**
+     * 设置签名密钥, 未配置时随机生成, 此时服务重启或多实例部署时游标会失效
+     *
+     * @param secret 签名密钥
+     * @return void
+     */
+    @Value("${spring.lucene.cursor-secret}")
+    public void setSecret(String secret) {
+        byte[] bytes;
+        if (StringUtils.isEmpty(secret)) {
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = secret.getBytes(UTF_8);
+        }
+        CursorCodec.key = new SecretKeySpec(bytes, ALGORITHM);
+    }
+
+    /**
+     * 生成游标, 不保存实际的索引名称
+     *
+     * @param after 本页最后一条结果
+     * @param searcherVersion 本次检索使用的检索器版本
+     * @param context 检索条件, 如索引名称及关键字, 解码时必须一致
+     * @return java.lang.String
+     */
+    public static String encode(ScoreDoc after, long searcherVersion, String context) {
+        return encode(after, null, searcherVersion, context);
+    }
+
+    /**
+     * 生成游标
+     *
+     * @param after 本页最后一条结果
+     * @param indexName 本次检索实际的索引名称, 可以为null
+     * @param searcherVersion 本次检索使用的检索器版本
+     * @param context 检索条件, 如索引名称(别名)及关键字, 解码时必须一致
+     * @return java.lang.String
+     */
+    public static String encode(ScoreDoc after, String indexName, long searcherVersion, String context) {
+        Object[] fields = after instanceof FieldDoc ? ((FieldDoc) after).fields : null;
+        byte[] indexNameBytes = indexName == null ? null : indexName.getBytes(UTF_8);
+        int extraLength = indexNameBytes == null ? 0 : 4 + indexNameBytes.length;
+        if (fields != null) {
+            extraLength += 4;
+            for (Object field : fields) {
+                extraLength += 1 + valueLength(field);
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + 4 + 4 + 4 + extraLength + MAC_LENGTH);
+        byte format = fields == null ? FORMAT : FORMAT_SORTED;
+        buffer.put(indexNameBytes == null ? format : (byte) (format | WITH_INDEX));
+        buffer.putLong(searcherVersion);
+        buffer.putInt(after.doc);
+        buffer.putFloat(after.score);
+        buffer.putInt(after.shardIndex);
+        if (indexNameBytes != null) {
+            buffer.putInt(indexNameBytes.length).put(indexNameBytes);
+        }
+        if (fields != null) {
+            buffer.putInt(fields.length);
+            for (Object field : fields) {
+                putValue(buffer, field);
+            }
+        }
+        buffer.put(sign(buffer.array(), buffer.position(), context));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * 解析游标
+     *
+     * @param token 客户端传回的游标
+     * @param context 检索条件, 必须与生成时一致
+     * @return com.paulandcode.utils.CursorCodec.Cursor
+     */
+    public static Cursor decode(String token, String context) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("分页游标无效! ");
+        }
+        int payloadLength = bytes.length - MAC_LENGTH;
+        byte format = payloadLength <= 0 ? 0 : (byte) (bytes[0] & ~WITH_INDEX);
+        if (format != FORMAT && format != FORMAT_SORTED) {
+            throw new RuntimeException("分页游标无效! ");
+        }
+        byte[] expected = sign(bytes, payloadLength, context);
+        if (!MessageDigest.isEqual(expected, Arrays.copyOfRange(bytes, payloadLength, bytes.length))) {
+            throw new RuntimeException("分页游标无效! ");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, payloadLength - 1);
+        long searcherVersion = buffer.getLong();
+        int doc = buffer.getInt();
+        float score = buffer.getFloat();
+        int shardIndex = buffer.getInt();
+        String indexName = (bytes[0] & WITH_INDEX) == 0 ? null : getString(buffer);
+        if (format == FORMAT) {
+            return new Cursor(new ScoreDoc(doc, score, shardIndex), indexName, searcherVersion);
+        }
+        Object[] fields = new Object[buffer.getInt()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = getValue(buffer);
+        }
+        return new Cursor(new FieldDoc(doc, score, fields, shardIndex), indexName, searcherVersion);
+    }
+
+    private static int valueLength(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof Long || value instanceof Double) {
+            return 8;
+        } else if (value instanceof Float || value instanceof Integer) {
+            return 4;
+        } else if (value instanceof BytesRef) {
+            return 4 + ((BytesRef) value).length;
+        }
+        throw new RuntimeException("不支持的排序值类型: " + value.getClass().getName() + "! ");
+    }
+
+    private static void putValue(ByteBuffer buffer, Object value) {
+        if (value == null) {
+            buffer.put(NULL);
+        } else if (value instanceof Long) {
+            buffer.put(LONG).putLong((Long) value);
+        } else if (value instanceof Double) {
+            buffer.put(DOUBLE).putDouble((Double) value);
+        } else if (value instanceof Float) {
+            buffer.put(FLOAT).putFloat((Float) value);
+        } else if (value instanceof Integer) {
+            buffer.put(INT).putInt((Integer) value);
+        } else {
+            BytesRef bytesRef = (BytesRef) value;
+            buffer.put(BYTES).putInt(bytesRef.length).put(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+        }
+    }
+
+    /**
+     * 签名校验通过后游标内容可信, 格式错误时仍按无效游标处理
+     */
+    private static Object getValue(ByteBuffer buffer) {
+        try {
+            byte type = buffer.get();
+            switch (type) {
+                case NULL:
+                    return null;
+                case LONG:
+                    return buffer.getLong();
+                case DOUBLE:
+                    return buffer.getDouble();
+                case FLOAT:
+                    return buffer.getFloat();
+                case INT:
+                    return buffer.getInt();
+                case BYTES:
+                    byte[] value = new byte[buffer.getInt()];
+                    buffer.get(value);
+                    return new BytesRef(value);
+                default:
+                    throw new RuntimeException("分页游标无效! ");
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new RuntimeException("分页游标无效! ");
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        try {
+            byte[] value = new byte[buffer.getInt()];
+            buffer.get(value);
+            return new String(value, UTF_8);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new RuntimeException("分页游标无效! ");
+        }
+    }
+
+    private static byte[] sign(byte[] payload, int length, String context) {
+        Mac mac = MAC.get();
+        mac.update(payload, 0, length);
+        mac.update(context.getBytes(UTF_8));
+        return Arrays.copyOf(mac.doFinal(), MAC_LENGTH);
+    }
+
+    /**
+     * 解析后的游标
+     */
+    public static class Cursor {
+        /**
+         * 上一页最后一条结果
+         */
+        private final ScoreDoc after;
+
+        /**
+         * 上一页实际的索引名称, 没有保存时为null
+         */
+        private final String indexName;
+
+        /**
+         * 上一页使用的检索器版本
+         */
+        private final long searcherVersion;
+
+        private Cursor(ScoreDoc after, String indexName, long searcherVersion) {
+            this.after = after;
+            this.indexName = indexName;
+            this.searcherVersion = searcherVersion;
+        }
+
+        public ScoreDoc getAfter() {
+            return after;
+        }
+
+        public String getIndexName() {
+            return indexName;
+        }
+
+        public long getSearcherVersion() {
+            return searcherVersion;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.paulandcode.utils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Description: 批量删除请求.
+ *  field与values为按主键批量删除, 所有主键在一次deleteDocuments中删除; clauses为按查询条件删除, 与检索的附加查询条件格式一致.
+ *  同时传入时删除主键在values中且满足clauses的数据. 两者都为空时不删除, 防止误删整个索引.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 01:30
+ */
+public class DeleteRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 索引存储相对路径或别名
+     */
+    private String indexName;
+
+    /**
+     * 主键域
+     */
+    private String field;
+
+    /**
+     * 要删除的主键
+     */
+    private List<String> values = new ArrayList<>();
+
+    /**
+     * 删除条件
+     */
+    private List<SearchRequest.Clause> clauses = new ArrayList<>();
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public void setField(String field) {
+        this.field = field;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public void setValues(List<String> values) {
+        this.values = values;
+    }
+
+    public List<SearchRequest.Clause> getClauses() {
+        return clauses;
+    }
+
+    public void setClauses(List<SearchRequest.Clause> clauses) {
+        this.clauses = clauses;
+    }
+}
@@ -0,0 +1,72 @@
+package com.paulandcode.utils;
+
+import com.paulandcode.config.LuceneProperties;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.store.NRTCachingDirectory;
+import org.apache.lucene.store.SimpleFSDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * @Description: 按索引配置打开索引文件夹.
+ *  directoryType为mmap时使用MMapDirectory, mmapPreload为true时打开文件后立即将其全部读入页缓存, 避免第一次检索时缺页;
+ *  nio使用NIOFSDirectory, simple使用SimpleFSDirectory, auto由FSDirectory.open按平台选择.
+ *  nrtCaching为true时外层再包一层NRTCachingDirectory, 近实时刷新产生的小段先保存在内存中, 不写入磁盘.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 00:20
+ */
+@Component
+public class DirectoryFactory {
+    /**
+     * Lucene索引配置
+     */
+    private static LuceneProperties luceneProperties;
+
+    @Autowired
+    public void setLuceneProperties(LuceneProperties luceneProperties) {
+        DirectoryFactory.luceneProperties = luceneProperties;
+    }
+
+    /**
+     * 打开索引文件夹
+     *
+     * @param indexName 索引存储相对路径
+     * @return org.apache.lucene.store.Directory
+     */
+    public static Directory open(String indexName) throws IOException {
+        LuceneProperties.IndexProperties indexProperties = luceneProperties.getIndex(indexName);
+        Path path = IndexManager.getFile(indexName).toPath();
+        String type = indexProperties.getDirectoryType() == null ? "auto" : indexProperties.getDirectoryType().toLowerCase();
+        Directory dir;
+        switch (type) {
+            case "mmap":
+                dir = new MMapDirectory(path);
+                break;
+            case "nio":
+                dir = new NIOFSDirectory(path);
+                break;
+            case "simple":
+                dir = new SimpleFSDirectory(path);
+                break;
+            case "auto":
+                dir = FSDirectory.open(path);
+                break;
+            default:
+                throw new RuntimeException("不支持的索引文件夹类型: " + type + "! ");
+        }
+        if (dir instanceof MMapDirectory) {
+            ((MMapDirectory) dir).setPreload(indexProperties.isMmapPreload());
+        }
+        if (indexProperties.isNrtCaching()) {
+            dir = new NRTCachingDirectory(dir, indexProperties.getNrtCachingMaxMergeSizeMb(), indexProperties.getNrtCachingMaxCachedMb());
+        }
+        return dir;
+    }
+}
@@ -0,0 +1,304 @@
+package com.paulandcode.utils;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.util.Bits;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: 统计收集器, 与检索的收集器通过MultiCollector组合, 在同一次遍历中统计所有匹配的数据. 并行检索时每个分片一个, 最后合并.
+ *  按值统计时在每个段内按序号(ord)计数, 段结束后再转换为字符串合并, 不需要为每条数据读取字符串.
+ *  区间统计直接读取数字列存储. 统计域必须在域定义中开启docValues.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 22:55
+ */
+public class FacetCollector extends SimpleCollector {
+    /**
+     * 每个统计条件的计数器
+     */
+    private final List<Counter> counters;
+
+    private FacetCollector(List<Counter> counters) {
+        this.counters = counters;
+    }
+
+    /**
+     * 创建统计收集器
+     *
+     * @param facets 统计条件
+     * @param schema 索引的域定义, 可以为null
+     * @return com.paulandcode.utils.FacetCollector 没有统计条件时返回null
+     */
+    public static FacetCollector create(List<SearchRequest.Facet> facets, IndexSchema schema) {
+        if (facets == null || facets.isEmpty()) {
+            return null;
+        }
+        List<Counter> counters = new ArrayList<>(facets.size());
+        for (SearchRequest.Facet facet : facets) {
+            String field = facet.getField();
+            IndexSchema.FieldDef fieldDef = schema == null || StringUtils.isEmpty(field) ? null : schema.getField(field);
+            if (fieldDef == null || !fieldDef.isDocValues()) {
+                throw new RuntimeException("域" + field + "没有写入列存储, 不能统计! ");
+            }
+            if (fieldDef.getType() == IndexSchema.Type.KEYWORD) {
+                counters.add(new TermCounter(field, facet.getSize()));
+            } else if (facet.getRanges() == null || facet.getRanges().isEmpty()) {
+                throw new RuntimeException("数值域" + field + "统计时需要指定区间! ");
+            } else {
+                counters.add(new RangeCounter(field, fieldDef, facet.getRanges()));
+            }
+        }
+        return new FacetCollector(counters);
+    }
+
+    @Override
+    protected void doSetNextReader(LeafReaderContext context) throws IOException {
+        for (Counter counter : counters) {
+            counter.setNextReader(context.reader());
+        }
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+        for (Counter counter : counters) {
+            counter.collect(doc);
+        }
+    }
+
+    @Override
+    public boolean needsScores() {
+        return false;
+    }
+
+    /**
+     * 获得统计结果, 检索结束后调用
+     *
+     * @return java.util.Map<java.lang.String,java.util.Map<java.lang.String,java.lang.Long>> 统计域与其统计结果的对应关系
+     */
+    public Map<String, Map<String, Long>> getResult() {
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        for (Counter counter : counters) {
+            result.put(counter.field, counter.getResult());
+        }
+        return result;
+    }
+
+    /**
+     * 合并并行检索时各个分片的统计结果
+     *
+     * @param collectors 各个分片的统计收集器, 由同样的统计条件创建
+     * @return java.util.Map<java.lang.String,java.util.Map<java.lang.String,java.lang.Long>> 统计域与其统计结果的对应关系
+     */
+    public static Map<String, Map<String, Long>> merge(List<FacetCollector> collectors) {
+        FacetCollector first = collectors.get(0);
+        for (int i = 1; i < collectors.size(); i++) {
+            List<Counter> others = collectors.get(i).counters;
+            for (int j = 0; j < first.counters.size(); j++) {
+                first.counters.get(j).merge(others.get(j));
+            }
+        }
+        return first.getResult();
+    }
+
+    /**
+     * 一个统计条件的计数器
+     */
+    private abstract static class Counter {
+        protected final String field;
+
+        private Counter(String field) {
+            this.field = field;
+        }
+
+        abstract void setNextReader(LeafReader reader) throws IOException;
+
+        abstract void collect(int doc);
+
+        abstract Map<String, Long> getResult();
+
+        /**
+         * 合并同一统计条件的另一个计数器
+         */
+        abstract void merge(Counter other);
+    }
+
+    /**
+     * 按值统计
+     */
+    private static class TermCounter extends Counter {
+        private final int size;
+
+        /**
+         * 已结束的段合并后的计数
+         */
+        private final Map<String, Long> totals = new HashMap<>();
+
+        private SortedDocValues values;
+
+        /**
+         * 当前段中每个序号的计数
+         */
+        private int[] counts;
+
+        private TermCounter(String field, int size) {
+            super(field);
+            this.size = size;
+        }
+
+        @Override
+        void setNextReader(LeafReader reader) throws IOException {
+            mergeSegment();
+            values = DocValues.getSorted(reader, field);
+            counts = new int[values.getValueCount()];
+        }
+
+        @Override
+        void collect(int doc) {
+            int ord = values.getOrd(doc);
+            if (ord >= 0) {
+                counts[ord]++;
+            }
+        }
+
+        @Override
+        Map<String, Long> getResult() {
+            mergeSegment();
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(totals.entrySet());
+            // 按条数从多到少, 条数相同时按值排序
+            entries.sort((a, b) -> {
+                int compare = Long.compare(b.getValue(), a.getValue());
+                return compare != 0 ? compare : a.getKey().compareTo(b.getKey());
+            });
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (Map.Entry<String, Long> entry : entries) {
+                if (size > 0 && result.size() >= size) {
+                    break;
+                }
+                result.put(entry.getKey(), entry.getValue());
+            }
+            return result;
+        }
+
+        @Override
+        void merge(Counter other) {
+            TermCounter termCounter = (TermCounter) other;
+            mergeSegment();
+            termCounter.mergeSegment();
+            termCounter.totals.forEach((term, count) -> totals.merge(term, count, Long::sum));
+        }
+
+        private void mergeSegment() {
+            if (counts == null) {
+                return;
+            }
+            for (int ord = 0; ord < counts.length; ord++) {
+                if (counts[ord] > 0) {
+                    totals.merge(values.lookupOrd(ord).utf8ToString(), (long) counts[ord], Long::sum);
+                }
+            }
+            counts = null;
+            values = null;
+        }
+    }
+
+    /**
+     * 按区间统计, 区间包含下限, 不包含上限
+     */
+    private static class RangeCounter extends Counter {
+        private final boolean isDouble;
+
+        private final String[] labels;
+
+        private final long[] longLowers;
+
+        private final long[] longUppers;
+
+        private final double[] doubleLowers;
+
+        private final double[] doubleUppers;
+
+        private final long[] counts;
+
+        private NumericDocValues values;
+
+        private Bits docsWithField;
+
+        private RangeCounter(String field, IndexSchema.FieldDef fieldDef, List<SearchRequest.Range> ranges) {
+            super(field);
+            int size = ranges.size();
+            isDouble = fieldDef.getType() == IndexSchema.Type.DOUBLE;
+            labels = new String[size];
+            longLowers = new long[size];
+            longUppers = new long[size];
+            doubleLowers = new double[size];
+            doubleUppers = new double[size];
+            counts = new long[size];
+            for (int i = 0; i < size; i++) {
+                SearchRequest.Range range = ranges.get(i);
+                String from = StringUtils.isEmpty(range.getFrom()) ? null : range.getFrom();
+                String to = StringUtils.isEmpty(range.getTo()) ? null : range.getTo();
+                labels[i] = StringUtils.isEmpty(range.getLabel()) ? (from == null ? "*" : from) + " TO " + (to == null ? "*" : to) : range.getLabel();
+                if (isDouble) {
+                    doubleLowers[i] = from == null ? Double.NEGATIVE_INFINITY : fieldDef.toDouble(from);
+                    doubleUppers[i] = to == null ? Double.POSITIVE_INFINITY : fieldDef.toDouble(to);
+                } else {
+                    longLowers[i] = from == null ? Long.MIN_VALUE : fieldDef.toLong(from);
+                    longUppers[i] = to == null ? Long.MAX_VALUE : fieldDef.toLong(to);
+                }
+            }
+        }
+
+        @Override
+        void setNextReader(LeafReader reader) throws IOException {
+            values = DocValues.getNumeric(reader, field);
+            docsWithField = DocValues.getDocsWithField(reader, field);
+        }
+
+        @Override
+        void collect(int doc) {
+            if (!docsWithField.get(doc)) {
+                return;
+            }
+            long value = values.get(doc);
+            for (int i = 0; i < counts.length; i++) {
+                if (isDouble) {
+                    double doubleValue = Double.longBitsToDouble(value);
+                    if (doubleValue >= doubleLowers[i] && (doubleValue < doubleUppers[i] || doubleUppers[i] == Double.POSITIVE_INFINITY)) {
+                        counts[i]++;
+                    }
+                } else if (value >= longLowers[i] && (value < longUppers[i] || longUppers[i] == Long.MAX_VALUE)) {
+                    counts[i]++;
+                }
+            }
+        }
+
+        @Override
+        void merge(Counter other) {
+            long[] otherCounts = ((RangeCounter) other).counts;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += otherCounts[i];
+            }
+        }
+
+        @Override
+        Map<String, Long> getResult() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (int i = 0; i < labels.length; i++) {
+                result.put(labels[i], counts[i]);
+            }
+            return result;
+        }
+    }
+}
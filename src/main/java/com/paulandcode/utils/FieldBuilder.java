@@ -0,0 +1,129 @@
+package com.paulandcode.utils;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * @Description: 按索引的域定义把一列数据转换为Lucene的域. 没有域定义的列按是否为Text形式写入TextField或StringField.
+ *  数值及日期类型的域同时以原值写入不存储的StringField, 可以作为主键按Term更新, 删除及增加权重.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 22:20
+ */
+public class FieldBuilder {
+    /**
+     * 在倒排表中保存偏移量并存储原值的Text形式索引, 高亮时直接使用偏移量, 不需要重新分词
+     */
+    private static final FieldType TEXT_WITH_OFFSETS = textWithOffsets(true);
+
+    /**
+     * 在倒排表中保存偏移量但不存储原值的Text形式索引
+     */
+    private static final FieldType TEXT_WITH_OFFSETS_NOT_STORED = textWithOffsets(false);
+
+    /**
+     * 索引的域定义, 可以为null
+     */
+    private final IndexSchema schema;
+
+    /**
+     * Text形式的索引是否保存偏移量
+     */
+    private final boolean storeOffsets;
+
+    public FieldBuilder(IndexSchema schema, boolean storeOffsets) {
+        this.schema = schema;
+        this.storeOffsets = storeOffsets;
+    }
+
+    /**
+     * 把一列数据加入文档
+     *
+     * @param doc 文档
+     * @param fieldName 域名称
+     * @param value 值
+     * @param text 没有域定义时是否进行Text形式的索引
+     * @return void
+     */
+    public void add(Document doc, String fieldName, String value, boolean text) {
+        IndexSchema.FieldDef fieldDef = schema == null ? null : schema.getField(fieldName);
+        if (fieldDef == null) {
+            if (text) {
+                doc.add(new Field(fieldName, value, getTextFieldType(true)));
+            } else {
+                doc.add(new StringField(fieldName, value, Field.Store.YES));
+            }
+            return;
+        }
+        boolean stored = fieldDef.isStored();
+        switch (fieldDef.getType()) {
+            case TEXT:
+                doc.add(new Field(fieldName, value, getTextFieldType(stored)));
+                break;
+            case KEYWORD:
+                doc.add(new StringField(fieldName, value, stored ? Field.Store.YES : Field.Store.NO));
+                if (fieldDef.isDocValues()) {
+                    doc.add(new SortedDocValuesField(fieldName, new BytesRef(value)));
+                }
+                break;
+            case LONG:
+            case DATE:
+                // 空的数值不写入, 范围检索时不会被匹配
+                if (value == null || value.trim().isEmpty()) {
+                    return;
+                }
+                long longValue = fieldDef.toLong(value);
+                doc.add(new LongPoint(fieldName, longValue));
+                doc.add(new StringField(fieldName, value, Field.Store.NO));
+                if (stored) {
+                    // 日期存储原值, 返回时不需要再格式化
+                    doc.add(fieldDef.getType() == IndexSchema.Type.DATE ? new StoredField(fieldName, value) : new StoredField(fieldName, longValue));
+                }
+                if (fieldDef.isDocValues()) {
+                    doc.add(new NumericDocValuesField(fieldName, longValue));
+                }
+                break;
+            case DOUBLE:
+                if (value == null || value.trim().isEmpty()) {
+                    return;
+                }
+                double doubleValue = fieldDef.toDouble(value);
+                doc.add(new DoublePoint(fieldName, doubleValue));
+                doc.add(new StringField(fieldName, value, Field.Store.NO));
+                if (stored) {
+                    doc.add(new StoredField(fieldName, doubleValue));
+                }
+                if (fieldDef.isDocValues()) {
+                    doc.add(new DoubleDocValuesField(fieldName, doubleValue));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private FieldType getTextFieldType(boolean stored) {
+        if (storeOffsets) {
+            return stored ? TEXT_WITH_OFFSETS : TEXT_WITH_OFFSETS_NOT_STORED;
+        }
+        return stored ? TextField.TYPE_STORED : TextField.TYPE_NOT_STORED;
+    }
+
+    private static FieldType textWithOffsets(boolean stored) {
+        FieldType fieldType = new FieldType(stored ? TextField.TYPE_STORED : TextField.TYPE_NOT_STORED);
+        fieldType.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        fieldType.freeze();
+        return fieldType;
+    }
+}
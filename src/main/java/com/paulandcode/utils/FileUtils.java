@@ -3,15 +3,32 @@ package com.paulandcode.utils;
 import org.apache.poi.hssf.usermodel.HSSFDateUtil;
 import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.apache.poi.xssf.usermodel.XSSFFormulaEvaluator;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -113,6 +130,111 @@ public class FileUtils {
         return result;
     }
 
+    /**
+     * 以流的方式逐行读取Excel中某个Sheet页的内容, 每解析一行就交给handler处理, 不会把整个文件读入内存.
+     * 根据文件名后缀判断Excel类型, .xlsx文件使用POI的SAX事件模型解析, .xls文件仍使用HSSFWorkbook读取, 但同样逐行交给handler.
+     *
+     * @param file       Excel文件
+     * @param sheetIndex Sheet页下标, 从0开始
+     * @param handler    每一行的处理器
+     * @return void
+     */
+    public static void readExcel(File file, int sheetIndex, RowHandler handler) {
+        String fileName = file.getName();
+        try {
+            if (fileName.endsWith(SUFFIX_2007)) {
+                readXlsx(file, sheetIndex, handler);
+            } else if (fileName.endsWith(SUFFIX_2003)) {
+                readXls(file, sheetIndex, handler);
+            } else {
+                throw new RuntimeException("文件格式错误! ");
+            }
+        } catch (RuntimeException e) {
+            // handler中抛出的异常原样抛出
+            throw e;
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("文件格式错误! ");
+        }
+    }
+
+    /**
+     * 将上传的附件保存为临时文件, 保留原文件的后缀, 使用后需要删除.
+     * 流式读取及异步任务都需要先保存为文件, 请求结束后上传的附件会被容器删除
+     *
+     * @param file 上传的附件
+     * @return java.io.File
+     */
+    public static File saveToTempFile(MultipartFile file) {
+        if (file == null) {
+            throw new RuntimeException("文件不存在! ");
+        }
+        String originalFilename = file.getOriginalFilename();
+        if (originalFilename == null) {
+            throw new RuntimeException("文件格式错误! ");
+        }
+        String suffix = originalFilename.endsWith(SUFFIX_2007) ? SUFFIX_2007 : originalFilename.endsWith(SUFFIX_2003) ? SUFFIX_2003 : "";
+        try {
+            File tempFile = File.createTempFile("lucene-upload-", suffix);
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return tempFile;
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("文件保存失败! ");
+        }
+    }
+
+    /**
+     * 使用SAX事件模型解析.xlsx文件, 内存占用只与当前行有关
+     */
+    private static void readXlsx(File file, int sheetIndex, RowHandler handler) throws Exception {
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            for (int i = 0; sheets.hasNext(); i++) {
+                try (InputStream sheet = sheets.next()) {
+                    if (i == sheetIndex) {
+                        XMLReader sheetParser = SAXHelper.newXMLReader();
+                        sheetParser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings,
+                                new StreamingRowReader(handler), new CellValueFormatter(), false));
+                        sheetParser.parse(new InputSource(sheet));
+                        return;
+                    }
+                }
+            }
+        } finally {
+            // 只读打开的包使用revert关闭, close会尝试保存
+            pkg.revert();
+        }
+    }
+
+    /**
+     * .xls文件没有使用事件模型, 读取整个Workbook后逐行交给handler
+     */
+    private static void readXls(File file, int sheetIndex, RowHandler handler) throws IOException {
+        try (InputStream in = new FileInputStream(file); HSSFWorkbook workbook = new HSSFWorkbook(in)) {
+            if (sheetIndex >= workbook.getNumberOfSheets()) {
+                return;
+            }
+            FormulaEvaluator formulaEvaluator = new HSSFFormulaEvaluator(workbook);
+            Sheet sheet = workbook.getSheetAt(sheetIndex);
+            for (Row row : sheet) {
+                List<String> cells = new ArrayList<>();
+                int lastCellNum = row.getLastCellNum();
+                for (int k = 0; k < lastCellNum; k++) {
+                    Cell cell = row.getCell(k);
+                    cells.add(cell == null ? "" : String.valueOf(getCellValue(cell, formulaEvaluator, true)));
+                }
+                handler.handle(cells);
+            }
+        }
+    }
+
     /**
      * 获得单元格中的值
      *
@@ -211,4 +333,70 @@ public class FileUtils {
             System.out.println("删除文件夹: " + dir + " : " + dir.delete());
         }
     }
+
+    /**
+     * Excel行处理器
+     */
+    public interface RowHandler {
+        /**
+         * 处理一行数据
+         *
+         * @param cells 该行各个单元格的值
+         * @return void
+         */
+        void handle(List<String> cells);
+    }
+
+    /**
+     * 将SAX解析出的单元格组装成行, 缺失的单元格补为空字符串
+     */
+    private static class StreamingRowReader implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowHandler handler;
+        private List<String> cells;
+
+        private StreamingRowReader(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells = new ArrayList<>();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            handler.handle(cells);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference == null ? cells.size() : new CellReference(cellReference).getCol();
+            while (cells.size() < column) {
+                cells.add("");
+            }
+            cells.add(formattedValue == null ? "" : formattedValue);
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+        }
+    }
+
+    /**
+     * 数字及日期单元格的格式化, 与getCellValue转换成字符串的结果保持一致
+     */
+    private static class CellValueFormatter extends DataFormatter {
+        /**
+         * SimpleDateFormat不是线程安全的, 每次解析单独创建
+         */
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return dateFormat.format(DateUtil.getJavaDate(value));
+            }
+            return String.valueOf(removeE(value));
+        }
+    }
 }
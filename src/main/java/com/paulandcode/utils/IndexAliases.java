@@ -0,0 +1,363 @@
+package com.paulandcode.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: 索引别名, 用于不停机全量重建索引. 别名(如: news)指向一个带版本的索引文件夹(如: news@20261019010000),
+ *  所有接口传入的索引名称先按别名解析为实际的索引, 没有别名的索引名称即为实际的索引.
+ *  重建流程: createVersion创建新版本(复制当前的域定义), 向新版本写入全部数据(可使用异步任务), 再通过switchTo原子地切换别名.
+ *  切换后新的请求使用新版本, 已开始的分页通过游标中的索引名称继续使用旧版本的检索器.
+ *  旧版本保留retention秒, 期间保持打开, 可以rollback, 之后被关闭并删除.
+ *  注意: 重建期间通过别名写入的增量数据只会写入旧版本, 需要在切换前同时写入新版本.
+ *  别名保存在索引根路径下的aliases.json中.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 01:10
+ */
+@Component
+@DependsOn("indexManager")
+public class IndexAliases {
+    /**
+     * 别名文件名称
+     */
+    public static final String FILE_NAME = "aliases.json";
+
+    /**
+     * 索引名称与版本号的分隔符
+     */
+    public static final char VERSION_SEPARATOR = '@';
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 切换后旧版本的保留时间, 单位: 秒.
+     */
+    private static long retention;
+
+    /**
+     * 别名与其指向的索引的对应关系
+     */
+    private static final Map<String, Alias> ALIASES = new ConcurrentHashMap<>();
+
+    /**
+     * 定时删除过期旧版本的线程
+     */
+    private static ScheduledExecutorService scheduler;
+
+    @Value("${spring.lucene.alias-retention}")
+    public void setRetention(long retention) {
+        IndexAliases.retention = retention;
+    }
+
+    @PostConstruct
+    public void start() {
+        load();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lucene-alias");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(IndexAliases::purge, 60, 60, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 将索引名称解析为实际的索引
+     *
+     * @param indexName 别名或索引存储相对路径
+     * @return java.lang.String 不是别名时返回原名称
+     */
+    public static String resolve(String indexName) {
+        Alias alias = ALIASES.get(indexName);
+        return alias == null ? indexName : alias.getCurrent();
+    }
+
+    /**
+     * 列出所有别名
+     *
+     * @return java.util.Map<java.lang.String, com.paulandcode.utils.IndexAliases.Alias> 按别名排序
+     */
+    public static Map<String, Alias> list() {
+        return new TreeMap<>(ALIASES);
+    }
+
+    /**
+     * 创建一个新版本的空索引, 并复制当前版本的域定义
+     *
+     * @param indexName 别名
+     * @return java.lang.String 新版本的索引名称, 写入数据时作为indexName传入
+     */
+    public static String createVersion(String indexName) {
+        if (indexName.indexOf(VERSION_SEPARATOR) >= 0) {
+            throw new RuntimeException("索引名称不能包含" + VERSION_SEPARATOR + "! ");
+        }
+        synchronized (ALIASES) {
+            String version = indexName + VERSION_SEPARATOR + LocalDateTime.now().format(VERSION_FORMAT);
+            File dir = IndexManager.getFile(version);
+            if (dir.exists()) {
+                throw new RuntimeException("版本" + version + "已存在, 请稍后重试! ");
+            }
+            if (!dir.mkdirs()) {
+                throw new RuntimeException("创建索引文件夹失败! ");
+            }
+            IndexSchema schema = SchemaRegistry.get(resolve(indexName));
+            if (schema != null) {
+                SchemaRegistry.save(version, schema);
+            }
+            return version;
+        }
+    }
+
+    /**
+     * 将别名切换到新版本, 切换前提交并刷新新版本. 旧版本提交后保持打开直到保留时间结束, 已开始的分页不受影响
+     *
+     * @param indexName 别名
+     * @param version 新版本的索引名称
+     * @return java.lang.String 切换前的索引名称
+     */
+    public static String switchTo(String indexName, String version) {
+        if (!version.startsWith(indexName + VERSION_SEPARATOR) || !IndexManager.exists(version)) {
+            throw new RuntimeException("索引" + indexName + "不存在版本" + version + "! ");
+        }
+        IndexManager.commit(version);
+        IndexManager.refresh(version);
+        String current;
+        synchronized (ALIASES) {
+            current = resolve(indexName);
+            if (current.equals(version)) {
+                return current;
+            }
+            Alias old = ALIASES.get(indexName);
+            ALIASES.put(indexName, new Alias(version, current, System.currentTimeMillis()));
+            save();
+            // 旧版本还未过期时再次切换, 更早的版本不再保留
+            if (old != null && old.getPrevious() != null && !old.getPrevious().equals(version)) {
+                deleteIndex(old.getPrevious());
+            }
+        }
+        IndexManager.commit(current);
+        System.out.println("索引" + indexName + "已从" + current + "切换到" + version);
+        return current;
+    }
+
+    /**
+     * 回滚到切换前的版本, 只能在旧版本被删除前回滚
+     *
+     * @param indexName 别名
+     * @return java.lang.String 回滚后的索引名称
+     */
+    public static String rollback(String indexName) {
+        String current;
+        String previous;
+        synchronized (ALIASES) {
+            Alias alias = ALIASES.get(indexName);
+            if (alias == null || alias.getPrevious() == null || !IndexManager.exists(alias.getPrevious())) {
+                throw new RuntimeException("索引" + indexName + "没有可以回滚的版本! ");
+            }
+            current = alias.getCurrent();
+            previous = alias.getPrevious();
+            // 回滚后被替换的版本同样保留retention秒
+            ALIASES.put(indexName, new Alias(previous, current, System.currentTimeMillis()));
+            save();
+        }
+        IndexManager.commit(current);
+        System.out.println("索引" + indexName + "已从" + current + "回滚到" + previous);
+        return previous;
+    }
+
+    /**
+     * 删除别名及其所有版本, 不是别名时只删除该索引
+     *
+     * @param indexName 别名或索引存储相对路径
+     * @return void
+     */
+    public static void delete(String indexName) {
+        Set<String> indexNames = new LinkedHashSet<>();
+        indexNames.add(indexName);
+        synchronized (ALIASES) {
+            for (Map.Entry<String, Alias> entry : ALIASES.entrySet()) {
+                if (!entry.getKey().equals(indexName) && entry.getValue().getCurrent().equals(indexName)) {
+                    throw new RuntimeException("索引" + indexName + "正在被别名" + entry.getKey() + "使用, 不能删除! ");
+                }
+            }
+            Alias alias = ALIASES.remove(indexName);
+            if (alias != null) {
+                save();
+                indexNames.add(alias.getCurrent());
+                if (alias.getPrevious() != null) {
+                    indexNames.add(alias.getPrevious());
+                }
+            }
+            if (indexName.indexOf(VERSION_SEPARATOR) < 0) {
+                // 创建后还未切换的版本
+                for (String name : IndexManager.discover()) {
+                    if (name.startsWith(indexName + VERSION_SEPARATOR)) {
+                        indexNames.add(name);
+                    }
+                }
+            }
+        }
+        for (String name : indexNames) {
+            deleteIndex(name);
+        }
+    }
+
+    /**
+     * 删除超过保留时间的旧版本
+     *
+     * @return void
+     */
+    private static void purge() {
+        long expireTime = System.currentTimeMillis() - retention * 1000;
+        for (String indexName : ALIASES.keySet()) {
+            try {
+                synchronized (ALIASES) {
+                    Alias alias = ALIASES.get(indexName);
+                    if (alias == null || alias.getPrevious() == null || alias.getSwitchTime() > expireTime) {
+                        continue;
+                    }
+                    if (alias.getCurrent().equals(indexName)) {
+                        // 已回滚到没有版本号的原索引, 不再需要别名
+                        ALIASES.remove(indexName);
+                    } else {
+                        ALIASES.put(indexName, new Alias(alias.getCurrent(), null, alias.getSwitchTime()));
+                    }
+                    save();
+                    deleteIndex(alias.getPrevious());
+                }
+            } catch (RuntimeException e) {
+                // 不能抛出异常, 否则定时任务会被取消
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void deleteIndex(String indexName) {
+        if (IndexManager.getFile(indexName).exists()) {
+            IndexManager.delete(indexName);
+        }
+    }
+
+    private static void load() {
+        File file = new File(IndexManager.getRootPath(), FILE_NAME);
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            Map<String, Alias> aliases = JSON.parseObject(new String(Files.readAllBytes(file.toPath()), UTF_8),
+                    new TypeReference<Map<String, Alias>>() {
+                    });
+            if (aliases != null) {
+                ALIASES.putAll(aliases);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("读取索引别名失败! ");
+        }
+    }
+
+    /**
+     * 先写入临时文件再替换, 切换是原子的
+     *
+     * @return void
+     */
+    private static void save() {
+        File dir = new File(IndexManager.getRootPath());
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new RuntimeException("创建索引根路径失败! ");
+        }
+        File file = new File(dir, FILE_NAME);
+        File tempFile = new File(dir, FILE_NAME + ".tmp");
+        try {
+            Files.write(tempFile.toPath(), JSON.toJSONString(new TreeMap<>(ALIASES), SerializerFeature.PrettyFormat).getBytes(UTF_8));
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("保存索引别名失败! ");
+        }
+    }
+
+    /**
+     * 别名指向的索引
+     */
+    public static class Alias {
+        /**
+         * 当前使用的索引
+         */
+        private String current;
+
+        /**
+         * 切换前的索引, 保留期间可以回滚, 没有时为null
+         */
+        private String previous;
+
+        /**
+         * 切换时间, 毫秒时间戳
+         */
+        private long switchTime;
+
+        public Alias() {
+        }
+
+        private Alias(String current, String previous, long switchTime) {
+            this.current = current;
+            this.previous = previous;
+            this.switchTime = switchTime;
+        }
+
+        public String getCurrent() {
+            return current;
+        }
+
+        public void setCurrent(String current) {
+            this.current = current;
+        }
+
+        public String getPrevious() {
+            return previous;
+        }
+
+        public void setPrevious(String previous) {
+            this.previous = previous;
+        }
+
+        public long getSwitchTime() {
+            return switchTime;
+        }
+
+        public void setSwitchTime(long switchTime) {
+            this.switchTime = switchTime;
+        }
+    }
+}
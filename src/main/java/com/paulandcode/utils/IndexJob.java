@@ -0,0 +1,169 @@
+package com.paulandcode.utils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @Description: 异步索引任务, 记录任务状态及写入进度
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 16:30
+ */
+public class IndexJob {
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        /**
+         * 排队中
+         */
+        WAITING,
+        /**
+         * 执行中
+         */
+        RUNNING,
+        /**
+         * 执行成功
+         */
+        SUCCESS,
+        /**
+         * 执行失败
+         */
+        FAILED
+    }
+
+    private final String id;
+    private final String indexName;
+    private final String type;
+    private final long submitTime = System.currentTimeMillis();
+    private volatile long startTime;
+    private volatile long endTime;
+    private volatile Status status = Status.WAITING;
+    private final List<String> errors = new CopyOnWriteArrayList<>();
+
+    /**
+     * 正在执行的批量写入, 用于获取实时进度
+     */
+    private volatile BulkIndexer<?> bulkIndexer;
+
+    /**
+     * 执行结束时的写入统计
+     */
+    private volatile BulkIndexer.Stats finalStats;
+
+    public IndexJob(String id, String indexName, String type) {
+        this.id = id;
+        this.indexName = indexName;
+        this.type = type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getSubmitTime() {
+        return submitTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * 已解析的行数
+     *
+     * @return long
+     */
+    public long getRowsParsed() {
+        BulkIndexer.Stats stats = getStats();
+        return stats == null ? 0 : stats.getParsed();
+    }
+
+    /**
+     * 已写入的文档数
+     *
+     * @return long
+     */
+    public long getDocsIndexed() {
+        BulkIndexer.Stats stats = getStats();
+        return stats == null ? 0 : stats.getIndexed();
+    }
+
+    /**
+     * 每秒写入的文档数
+     *
+     * @return long
+     */
+    public long getDocsPerSecond() {
+        BulkIndexer.Stats stats = getStats();
+        return stats == null ? 0 : stats.getDocsPerSecond();
+    }
+
+    /**
+     * 开始执行
+     *
+     * @return void
+     */
+    void start() {
+        startTime = System.currentTimeMillis();
+        status = Status.RUNNING;
+    }
+
+    /**
+     * 执行结束
+     *
+     * @param stats 写入统计, 为null时保留正在执行的批量写入的进度
+     * @param error 异常, 成功时为null
+     * @return void
+     */
+    void finish(BulkIndexer.Stats stats, Throwable error) {
+        BulkIndexer<?> running = bulkIndexer;
+        // 失败时没有返回统计, 失败前已解析及写入的条数仍可查询
+        finalStats = stats == null && running != null ? running.getStats() : stats;
+        bulkIndexer = null;
+        if (error != null) {
+            errors.add(String.valueOf(error.getMessage()));
+            Throwable cause = error.getCause();
+            if (cause != null) {
+                errors.add(String.valueOf(cause.getMessage()));
+            }
+        }
+        endTime = System.currentTimeMillis();
+        status = error == null ? Status.SUCCESS : Status.FAILED;
+    }
+
+    /**
+     * 记录正在执行的批量写入
+     *
+     * @param bulkIndexer 批量写入
+     * @return void
+     */
+    public void monitor(BulkIndexer<?> bulkIndexer) {
+        this.bulkIndexer = bulkIndexer;
+    }
+
+    private BulkIndexer.Stats getStats() {
+        BulkIndexer<?> running = bulkIndexer;
+        return running != null ? running.getStats() : finalStats;
+    }
+}
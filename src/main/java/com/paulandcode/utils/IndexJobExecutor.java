@@ -0,0 +1,183 @@
+package com.paulandcode.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * @Description: 异步索引任务执行器.
+ *  任务在固定大小的线程池中执行, 同一个索引的任务按提交顺序依次执行, 避免多个大任务同时争用同一个IndexWriter.
+ *  未结束的任务数超过jobMaxPending时拒绝提交, 已结束的任务保留jobRetention秒供查询.
+ *  Spring容器关闭时先于写入流及批量写入线程池关闭(DependsOn), 排队中的任务不再执行, 状态为FAILED.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 16:52
+ */
+@Component
+@DependsOn("indexWriterRegistry")
+public class IndexJobExecutor {
+    /**
+     * 执行任务的线程数
+     */
+    @Value("${spring.lucene.job-threads}")
+    private int jobThreads;
+
+    /**
+     * 允许的未结束任务数
+     */
+    @Value("${spring.lucene.job-max-pending}")
+    private int jobMaxPending;
+
+    /**
+     * 已结束的任务保留时间, 单位: 秒.
+     */
+    @Value("${spring.lucene.job-retention}")
+    private long jobRetention;
+
+    private ExecutorService executor;
+
+    /**
+     * 任务编号与任务的对应关系
+     */
+    private final Map<String, IndexJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 每个索引最后提交的任务, 新任务在其之后执行
+     */
+    private final Map<String, CompletableFuture<Void>> tails = new HashMap<>();
+
+    /**
+     * 未结束的任务数
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * 是否已关闭, 关闭后排队中的任务不再执行
+     */
+    private volatile boolean stopped;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNum = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(jobThreads, r -> new Thread(r, "lucene-job-" + threadNum.incrementAndGet()));
+    }
+
+    /**
+     * Spring容器关闭时等待正在执行的任务结束. 排队中的任务出队后直接失败, 同一索引后续的任务提交到线程池时被拒绝,
+     * 同样标记为失败, 不会一直处于WAITING状态
+     *
+     * @return void
+     */
+    @PreDestroy
+    public void shutdown() {
+        stopped = true;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param indexName 索引存储相对路径, 同一索引的任务依次执行
+     * @param type 任务类型, 如addIndex, updateIndex
+     * @param task 任务内容, 参数为任务本身, 可通过IndexJob.monitor报告进度
+     * @return com.paulandcode.utils.IndexJob
+     */
+    public IndexJob submit(String indexName, String type, Function<IndexJob, BulkIndexer.Stats> task) {
+        removeExpiredJobs();
+        IndexJob job = new IndexJob(UUID.randomUUID().toString().replace("-", ""), indexName, type);
+        synchronized (tails) {
+            if (stopped) {
+                throw new RuntimeException("服务正在关闭, 不能提交索引任务! ");
+            }
+            if (pending.get() >= jobMaxPending) {
+                throw new RuntimeException("索引任务过多, 请稍后再试! ");
+            }
+            pending.incrementAndGet();
+            jobs.put(job.getId(), job);
+            CompletableFuture<Void> tail = tails.get(indexName);
+            if (tail == null) {
+                tail = CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> next = tail.thenRunAsync(() -> run(job, task), executor);
+            tails.put(indexName, next);
+            next.whenComplete((result, e) -> {
+                synchronized (tails) {
+                    tails.remove(indexName, next);
+                }
+                // run不会抛出异常, 出错说明线程池关闭后任务被拒绝, 或前一个任务被拒绝而未执行
+                if (e != null) {
+                    skip(job);
+                }
+            });
+        }
+        return job;
+    }
+
+    /**
+     * 查询任务
+     *
+     * @param id 任务编号
+     * @return com.paulandcode.utils.IndexJob 不存在或已过期时返回null
+     */
+    public IndexJob get(String id) {
+        return jobs.get(id);
+    }
+
+    private void run(IndexJob job, Function<IndexJob, BulkIndexer.Stats> task) {
+        if (stopped) {
+            skip(job);
+            return;
+        }
+        job.start();
+        try {
+            job.finish(task.apply(job), null);
+        } catch (Throwable e) {
+            // 不能抛出异常, 否则同一索引后续的任务不会执行
+            e.printStackTrace();
+            job.finish(null, e);
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * 关闭时未执行的任务直接结束
+     *
+     * @param job 任务
+     * @return void
+     */
+    private void skip(IndexJob job) {
+        job.finish(null, new RuntimeException("服务已关闭, 任务未执行! "));
+        pending.decrementAndGet();
+    }
+
+    private void removeExpiredJobs() {
+        long expireTime = System.currentTimeMillis() - jobRetention * 1000;
+        Iterator<IndexJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            IndexJob job = iterator.next();
+            if (job.getEndTime() > 0 && job.getEndTime() < expireTime) {
+                iterator.remove();
+            }
+        }
+    }
+}
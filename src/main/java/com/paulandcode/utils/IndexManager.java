@@ -0,0 +1,440 @@
+package com.paulandcode.utils;
+
+import com.paulandcode.config.LuceneProperties;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * @Description: 索引管理. 统一解析索引名称对应的文件夹, 启动时发现索引根路径下的所有索引,
+ *  并负责索引的打开, 提交, 刷新, 关闭及删除. 每个索引的文件夹, 写入流, 检索器管理器, 补全器及点击权重
+ *  仍分别由各个注册表保存, 本类按正确的顺序调用它们. 索引的分词器在创建或第一次写入时保存在域定义中,
+ *  检索及补全通过getAnalyzerName使用同一个分词器.
+ *  Spring容器关闭时先于各注册表执行(DependsOn), 依次写入点击权重, 关闭补全器, 检索器及写入流(提交), 不丢失数据.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 00:50
+ */
+@Component
+@DependsOn({"indexWriterRegistry", "searcherRegistry", "suggesterRegistry", "clickWeights"})
+public class IndexManager {
+    /**
+     * Lucene索引根路径
+     */
+    private static String rootPath;
+
+    /**
+     * Lucene索引配置
+     */
+    private static LuceneProperties luceneProperties;
+
+    @Value("${spring.lucene.root-path}")
+    public void setRootPath(String rootPath) {
+        IndexManager.rootPath = rootPath;
+    }
+
+    @Autowired
+    public void setLuceneProperties(LuceneProperties luceneProperties) {
+        IndexManager.luceneProperties = luceneProperties;
+    }
+
+    @PostConstruct
+    public void start() {
+        System.out.println("索引根路径" + rootPath + "下共有" + discover().size() + "个索引");
+    }
+
+    /**
+     * Spring容器关闭时关闭所有打开的索引
+     *
+     * @return void
+     */
+    @PreDestroy
+    public void shutdown() {
+        ClickWeights.flushAll();
+        for (String indexName : IndexWriterRegistry.getOpenIndexes()) {
+            close(indexName);
+        }
+    }
+
+    /**
+     * 获得索引根路径
+     *
+     * @return java.lang.String
+     */
+    public static String getRootPath() {
+        return rootPath;
+    }
+
+    /**
+     * 获得索引文件夹, 索引名称不能为空, 不能包含..且不能是绝对路径
+     *
+     * @param indexName 索引存储相对路径
+     * @return java.io.File
+     */
+    public static File getFile(String indexName) {
+        if (indexName == null || indexName.trim().isEmpty() || indexName.contains("..")
+                || indexName.startsWith("/") || indexName.startsWith("\\") || indexName.contains(":")) {
+            throw new RuntimeException("索引名称无效! ");
+        }
+        return new File(rootPath + indexName);
+    }
+
+    /**
+     * 索引文件夹是否存在
+     *
+     * @param indexName 索引存储相对路径
+     * @return boolean
+     */
+    public static boolean exists(String indexName) {
+        return getFile(indexName).isDirectory();
+    }
+
+    /**
+     * 查找索引根路径下的所有索引, 包含segments_N文件的文件夹即为索引
+     *
+     * @return java.util.Set<java.lang.String> 按名称排序的索引名称
+     */
+    public static Set<String> discover() {
+        Set<String> indexNames = new TreeSet<>();
+        findIndexes(new File(rootPath), "", indexNames);
+        // 已打开但还没有提交过的索引
+        indexNames.addAll(IndexWriterRegistry.getOpenIndexes());
+        return indexNames;
+    }
+
+    /**
+     * 列出所有索引的状态
+     *
+     * @return java.util.List<com.paulandcode.utils.IndexManager.IndexInfo>
+     */
+    public static List<IndexInfo> list() {
+        List<IndexInfo> infos = new ArrayList<>();
+        for (String indexName : discover()) {
+            infos.add(getInfo(indexName));
+        }
+        return infos;
+    }
+
+    /**
+     * 获得索引的状态, 未打开的索引只统计文件大小, 不会被打开
+     *
+     * @param indexName 索引存储相对路径
+     * @return com.paulandcode.utils.IndexManager.IndexInfo
+     */
+    public static IndexInfo getInfo(String indexName) {
+        IndexInfo info = new IndexInfo();
+        info.name = indexName;
+        info.sizeInBytes = sizeOf(getFile(indexName));
+        info.directoryType = luceneProperties.getIndex(indexName).getDirectoryType();
+        info.analyzer = SchemaRegistry.getAnalyzer(indexName);
+        info.open = IndexWriterRegistry.isOpen(indexName);
+        if (info.open) {
+            IndexSearcher searcher = SearcherRegistry.acquire(indexName);
+            if (searcher != null) {
+                try {
+                    IndexReader reader = searcher.getIndexReader();
+                    info.numDocs = reader.numDocs();
+                    info.maxDoc = reader.maxDoc();
+                    info.segments = reader.leaves().size();
+                    info.version = SearcherRegistry.getVersion(searcher);
+                } finally {
+                    SearcherRegistry.release(searcher);
+                }
+            }
+        }
+        return info;
+    }
+
+    /**
+     * 获得读取索引时使用的分词器: 索引已保存分词器时使用保存的分词器, 忽略请求的分词器,
+     * 还没有保存时使用请求的分词器, 都没有时使用simple. 不会保存分词器
+     *
+     * @param indexName 索引存储相对路径
+     * @param requested 请求的分词器名称, 可以为null
+     * @return java.lang.String
+     */
+    public static String getAnalyzerName(String indexName, String requested) {
+        String analyzerName = SchemaRegistry.getAnalyzer(indexName);
+        if (analyzerName != null) {
+            return analyzerName;
+        }
+        return requested == null ? AnalyzerRegistry.SIMPLE : requested;
+    }
+
+    /**
+     * 创建索引并保存分词器, 之后的写入, 检索及补全都使用该分词器. 索引已存在时分词器必须与保存的一致
+     *
+     * @param indexName 索引存储相对路径
+     * @param analyzerName 分词器名称
+     * @return boolean 索引已存在时返回false
+     */
+    public static boolean create(String indexName, String analyzerName) {
+        boolean created = !exists(indexName);
+        // 不存在的分词器抛出异常, 与已保存的分词器不一致时获得写入流会抛出异常
+        AnalyzerRegistry.get(analyzerName);
+        IndexWriter indexWriter = IndexWriterRegistry.get(indexName, analyzerName);
+        if (indexWriter == null) {
+            throw new RuntimeException("创建索引" + indexName + "失败! ");
+        }
+        // 提交后才会写入segments_N文件, 重启后可以被发现
+        IndexWriterRegistry.commit(indexName);
+        return created;
+    }
+
+    /**
+     * 打开索引的写入流及检索器, 已打开时不处理
+     *
+     * @param indexName 索引存储相对路径
+     * @return boolean 索引不存在时返回false
+     */
+    public static boolean open(String indexName) {
+        if (!exists(indexName)) {
+            return false;
+        }
+        IndexSearcher searcher = SearcherRegistry.acquire(indexName);
+        if (searcher == null) {
+            return false;
+        }
+        SearcherRegistry.release(searcher);
+        return true;
+    }
+
+    /**
+     * 提交索引, 未写入的点击权重一起提交
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public static void commit(String indexName) {
+        ClickWeights.flush(indexName);
+        IndexWriterRegistry.commit(indexName);
+    }
+
+    /**
+     * 刷新检索器, 使已写入的数据立即可以被检索到
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public static void refresh(String indexName) {
+        SearcherRegistry.refresh(indexName);
+    }
+
+    /**
+     * 统计索引的段, 索引未打开时会打开
+     *
+     * @param indexName 索引存储相对路径
+     * @return com.paulandcode.utils.SegmentStats 索引不存在时返回null
+     */
+    public static SegmentStats getSegments(String indexName) {
+        if (!exists(indexName)) {
+            return null;
+        }
+        IndexSearcher searcher = SearcherRegistry.acquire(indexName);
+        if (searcher == null) {
+            return null;
+        }
+        try {
+            return SegmentStats.of(searcher.getIndexReader());
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("统计段失败! ");
+        } finally {
+            SearcherRegistry.release(searcher);
+        }
+    }
+
+    /**
+     * 合并段, 等待合并结束后提交并刷新检索器, 应在异步任务中执行. 合并期间写入及检索不受影响
+     *
+     * @param indexName 索引存储相对路径
+     * @param maxSegments 合并后最多的段数, onlyExpungeDeletes为true时忽略
+     * @param onlyExpungeDeletes 是否只合并删除比例较高的段, 清除已删除的数据
+     * @return void
+     */
+    public static void forceMerge(String indexName, int maxSegments, boolean onlyExpungeDeletes) {
+        if (!exists(indexName)) {
+            throw new RuntimeException("索引" + indexName + "不存在! ");
+        }
+        IndexWriter indexWriter = IndexWriterRegistry.get(indexName);
+        if (indexWriter == null) {
+            throw new RuntimeException("打开索引" + indexName + "失败! ");
+        }
+        try {
+            if (onlyExpungeDeletes) {
+                indexWriter.forceMergeDeletes(true);
+            } else {
+                indexWriter.forceMerge(Math.max(maxSegments, 1), true);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("合并段失败! ");
+        }
+        IndexWriterRegistry.commit(indexName);
+        SearcherRegistry.refresh(indexName);
+    }
+
+    /**
+     * 关闭索引, 依次写入点击权重, 关闭补全器, 检索器及写入流, 关闭写入流时会提交.
+     * 关闭期间到达的点击权重被丢弃
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public static void close(String indexName) {
+        ClickWeights.flush(indexName);
+        SuggesterRegistry.evict(indexName);
+        // 会先关闭检索器管理器
+        IndexWriterRegistry.close(indexName);
+        ClickWeights.evict(indexName);
+    }
+
+    /**
+     * 关闭并删除整个索引文件夹
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public static void delete(String indexName) {
+        File dir = getFile(indexName);
+        // 先关闭写入流, 释放写锁及文件句柄
+        close(indexName);
+        FileUtils.deleteAll(dir);
+        SchemaRegistry.evict(indexName);
+        ClickWeights.evict(indexName);
+    }
+
+    private static void findIndexes(File dir, String indexName, Set<String> indexNames) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!indexName.isEmpty() && file.isFile() && file.getName().startsWith("segments_")) {
+                indexNames.add(indexName);
+                return;
+            }
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                findIndexes(file, indexName.isEmpty() ? file.getName() : indexName + "/" + file.getName(), indexNames);
+            }
+        }
+    }
+
+    private static long sizeOf(File file) {
+        if (file.isFile()) {
+            return file.length();
+        }
+        long size = 0;
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                size += sizeOf(child);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 索引的状态
+     */
+    public static class IndexInfo implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 索引名称
+         */
+        private String name;
+
+        /**
+         * 是否已打开
+         */
+        private boolean open;
+
+        /**
+         * 索引保存的分词器, 还未写入过Text形式的域时为null
+         */
+        private String analyzer;
+
+        /**
+         * 索引文件夹类型
+         */
+        private String directoryType;
+
+        /**
+         * 索引文件的总大小, 单位: 字节
+         */
+        private long sizeInBytes;
+
+        /**
+         * 未删除的数据条数, 未打开时为null
+         */
+        private Integer numDocs;
+
+        /**
+         * 包含已删除数据的数据条数, 未打开时为null
+         */
+        private Integer maxDoc;
+
+        /**
+         * 段数, 未打开时为null
+         */
+        private Integer segments;
+
+        /**
+         * 当前检索器的版本, 未打开时为null
+         */
+        private Long version;
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isOpen() {
+            return open;
+        }
+
+        public String getAnalyzer() {
+            return analyzer;
+        }
+
+        public String getDirectoryType() {
+            return directoryType;
+        }
+
+        public long getSizeInBytes() {
+            return sizeInBytes;
+        }
+
+        public Integer getNumDocs() {
+            return numDocs;
+        }
+
+        public Integer getMaxDoc() {
+            return maxDoc;
+        }
+
+        public Integer getSegments() {
+            return segments;
+        }
+
+        public Long getVersion() {
+            return version;
+        }
+    }
+}
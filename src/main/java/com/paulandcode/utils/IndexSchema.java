@@ -0,0 +1,218 @@
+package com.paulandcode.utils;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Description: 索引的域定义, 以schema.json保存在索引文件夹中.
+ *  定义了类型的域按类型写入: TEXT分词, KEYWORD不分词, LONG, DOUBLE及DATE写入数值点(BKD树), 可以高效地进行范围检索,
+ *  同时写入不分词的原值, 可以作为主键更新及删除(按原值的字符串匹配).
+ *  docValues为true时同时写入列存储, 用于排序及统计. 没有定义的域仍按textColumns决定以Text或String形式写入.
+ *  已写入数据的域不能修改类型, 已写入未定义类型数据的域只能定义为对应的TEXT或KEYWORD(不写入列存储), 否则需要删除索引后重新创建.
+ *  analyzer为写入Text形式的域时使用的分词器, 第一次写入时确定并保存, 之后不能修改.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 22:05
+ */
+public class IndexSchema implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 默认的日期格式, 与读取Excel时的日期格式一致
+     */
+    public static final String DEFAULT_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    /**
+     * 域名称与其定义的对应关系
+     */
+    private Map<String, FieldDef> fields = new LinkedHashMap<>();
+
+    /**
+     * 索引使用的分词器名称, 为null时还未确定
+     */
+    private String analyzer;
+
+    /**
+     * 获得某个域的定义
+     *
+     * @param fieldName 域名称
+     * @return com.paulandcode.utils.IndexSchema.FieldDef 没有定义时返回null
+     */
+    public FieldDef getField(String fieldName) {
+        return fields.get(fieldName);
+    }
+
+    public Map<String, FieldDef> getFields() {
+        return fields;
+    }
+
+    public void setFields(Map<String, FieldDef> fields) {
+        this.fields = fields;
+    }
+
+    public String getAnalyzer() {
+        return analyzer;
+    }
+
+    public void setAnalyzer(String analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * 域类型
+     */
+    public enum Type {
+        /**
+         * 分词的文本
+         */
+        TEXT,
+        /**
+         * 不分词的字符串, 如编号, 分类
+         */
+        KEYWORD,
+        /**
+         * 整数
+         */
+        LONG,
+        /**
+         * 小数
+         */
+        DOUBLE,
+        /**
+         * 日期, 按dateFormat解析后以毫秒数写入
+         */
+        DATE
+    }
+
+    /**
+     * 域定义
+     */
+    public static class FieldDef implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 域类型
+         */
+        private Type type = Type.KEYWORD;
+
+        /**
+         * 是否存储原值, 不存储时检索结果中没有该域
+         */
+        private boolean stored = true;
+
+        /**
+         * 是否写入列存储(DocValues), 排序及统计时需要, TEXT类型不支持
+         */
+        private boolean docValues;
+
+        /**
+         * DATE类型的日期格式
+         */
+        private String dateFormat = DEFAULT_DATE_FORMAT;
+
+        private transient DateTimeFormatter formatter;
+
+        /**
+         * 将LONG或DATE类型的值转换为整数
+         *
+         * @param value 原值
+         * @return long
+         */
+        public long toLong(String value) {
+            String trimmed = value.trim();
+            try {
+                if (type == Type.DATE) {
+                    return LocalDateTime.parse(trimmed, formatter()).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                }
+                try {
+                    return Long.parseLong(trimmed);
+                } catch (NumberFormatException e) {
+                    // Excel中的整数可能带有小数部分
+                    return new BigDecimal(trimmed).longValue();
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new RuntimeException("值" + value + "不是有效的" + (type == Type.DATE ? "日期" : "整数") + "! ");
+            }
+        }
+
+        /**
+         * 将DOUBLE类型的值转换为小数
+         *
+         * @param value 原值
+         * @return double
+         */
+        public double toDouble(String value) {
+            try {
+                return Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("值" + value + "不是有效的小数! ");
+            }
+        }
+
+        /**
+         * 将DATE类型的毫秒数按dateFormat格式化, 用于从列存储读取日期
+         *
+         * @param millis 毫秒数
+         * @return java.lang.String
+         */
+        public String format(long millis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()).format(formatter());
+        }
+
+        /**
+         * 日期格式中没有时分秒时默认为0点
+         */
+        private DateTimeFormatter formatter() {
+            if (formatter == null) {
+                formatter = new DateTimeFormatterBuilder().appendPattern(dateFormat)
+                        .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+                        .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+                        .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
+                        .toFormatter();
+            }
+            return formatter;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public void setType(Type type) {
+            this.type = type;
+        }
+
+        public boolean isStored() {
+            return stored;
+        }
+
+        public void setStored(boolean stored) {
+            this.stored = stored;
+        }
+
+        public boolean isDocValues() {
+            return docValues;
+        }
+
+        public void setDocValues(boolean docValues) {
+            this.docValues = docValues;
+        }
+
+        public String getDateFormat() {
+            return dateFormat;
+        }
+
+        public void setDateFormat(String dateFormat) {
+            this.dateFormat = dateFormat;
+            this.formatter = null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.paulandcode.utils;
+
+import com.paulandcode.config.LuceneProperties;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * @Description: 启动时预热索引. 打开索引根路径下的所有索引, 并执行各索引配置的预热查询,
+ *  使索引文件在接收请求前已读入页缓存. ApplicationRunner在应用就绪(ApplicationReadyEvent)之前执行, 预热结束后才会报告就绪.
+ *  预热查询使用索引保存的分词器解析, 预热不会确定索引的分词器.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 00:30
+ */
+@Component
+public class IndexWarmer implements ApplicationRunner {
+    /**
+     * 是否在启动时预热索引
+     */
+    @Value("${spring.lucene.warmup}")
+    private boolean warmup;
+
+    private final LuceneProperties luceneProperties;
+
+    @Autowired
+    public IndexWarmer(LuceneProperties luceneProperties) {
+        this.luceneProperties = luceneProperties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!warmup) {
+            return;
+        }
+        for (String indexName : IndexManager.discover()) {
+            long start = System.currentTimeMillis();
+            try {
+                warm(indexName);
+                System.out.println("预热索引" + indexName + "完成, 耗时: " + (System.currentTimeMillis() - start) + "毫秒");
+            } catch (IOException | ParseException | RuntimeException e) {
+                // 一个索引预热失败不影响启动
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 打开索引并执行预热查询, 读取结果的存储域. 还没有确定分词器的索引只打开, 不执行预热查询
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    private void warm(String indexName) throws IOException, ParseException {
+        LuceneProperties.IndexProperties indexProperties = luceneProperties.getIndex(indexName);
+        IndexSearcher searcher = SearcherRegistry.acquire(indexName);
+        if (searcher == null) {
+            return;
+        }
+        try {
+            String analyzerName = SchemaRegistry.getAnalyzer(indexName);
+            if (analyzerName == null || indexProperties.getWarmupQueries().isEmpty()) {
+                return;
+            }
+            // 预热查询需要指定检索域, 如: title:检索
+            QueryParser queryParser = new QueryParser("", AnalyzerRegistry.get(analyzerName));
+            for (String warmupQuery : indexProperties.getWarmupQueries()) {
+                TopDocs docs = searcher.search(queryParser.parse(warmupQuery), 10);
+                for (ScoreDoc scoreDoc : docs.scoreDocs) {
+                    searcher.doc(scoreDoc.doc);
+                }
+            }
+        } finally {
+            SearcherRegistry.release(searcher);
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package com.paulandcode.utils;
+
+import com.paulandcode.config.LuceneProperties;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.DelegatingAnalyzerWrapper;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.TieredMergePolicy;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.store.Directory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @Description: 索引写入流注册表, 每个索引只保持一个长期打开的IndexWriter, 供所有请求共享.
+ *  IndexWriter本身是线程安全的, 所以多个请求可以同时写入同一个索引.
+ *  写入流的分词器始终是索引保存的分词器(schema.json中的analyzer), 第一次写入时确定, 之后写入时指定了不同的分词器会抛出异常.
+ *  提交策略: 每隔commitInterval秒提交一次, 或未提交的文档数达到commitMaxDocs时立即提交.
+ *  批量写入的线程来自所有索引共享的indexPoolThreads个线程, 同时进行的批量写入超过线程数时排队等待.
+ *  Spring容器关闭时会停止批量写入线程, 提交并关闭所有IndexWriter.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 10:12
+ */
+@Component
+public class IndexWriterRegistry {
+    /**
+     * 定时提交的时间间隔, 单位: 秒.
+     */
+    private static int commitInterval;
+
+    /**
+     * 未提交的文档数达到该值时立即提交
+     */
+    private static int commitMaxDocs;
+
+    /**
+     * Lucene索引配置
+     */
+    private static LuceneProperties luceneProperties;
+
+    /**
+     * 索引名称与其写入流的对应关系
+     */
+    private static final Map<String, Holder> HOLDERS = new ConcurrentHashMap<>();
+
+    /**
+     * 定时提交及异步提交的线程
+     */
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * 批量写入共享线程池的线程数
+     */
+    private static int indexPoolThreads;
+
+    /**
+     * 所有索引共享的批量写入线程池
+     */
+    private static ExecutorService indexExecutor;
+
+    @Autowired
+    public void setLuceneProperties(LuceneProperties luceneProperties) {
+        IndexWriterRegistry.luceneProperties = luceneProperties;
+    }
+
+    @Value("${spring.lucene.commit-interval}")
+    public void setCommitInterval(int commitInterval) {
+        IndexWriterRegistry.commitInterval = commitInterval;
+    }
+
+    @Value("${spring.lucene.commit-max-docs}")
+    public void setCommitMaxDocs(int commitMaxDocs) {
+        IndexWriterRegistry.commitMaxDocs = commitMaxDocs;
+    }
+
+    @Value("${spring.lucene.index-pool-threads}")
+    public void setIndexPoolThreads(int indexPoolThreads) {
+        IndexWriterRegistry.indexPoolThreads = indexPoolThreads;
+    }
+
+    /**
+     * 启动定时提交线程
+     *
+     * @return void
+     */
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lucene-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(IndexWriterRegistry::commitAll, commitInterval, commitInterval, TimeUnit.SECONDS);
+        AtomicInteger threadNum = new AtomicInteger();
+        indexExecutor = Executors.newFixedThreadPool(Math.max(1, indexPoolThreads), r -> {
+            Thread thread = new Thread(r, "lucene-bulk-" + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Spring容器关闭时, 提交并关闭所有索引写入流
+     *
+     * @return void
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (indexExecutor != null) {
+            // 未完成的批量写入在关闭写入流前中断, 已写入的数据随关闭提交.
+            // 排队中的写入任务取消后, 等待它们的finish会结束并报告失败
+            for (Runnable task : indexExecutor.shutdownNow()) {
+                if (task instanceof Future) {
+                    ((Future<?>) task).cancel(false);
+                }
+            }
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(commitInterval, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (String indexName : HOLDERS.keySet()) {
+            close(indexName);
+        }
+    }
+
+    /**
+     * 获得所有索引共享的批量写入线程池
+     *
+     * @return java.util.concurrent.ExecutorService
+     */
+    public static ExecutorService getIndexExecutor() {
+        if (indexExecutor == null) {
+            throw new RuntimeException("批量写入线程池还未启动! ");
+        }
+        return indexExecutor;
+    }
+
+    /**
+     * 写入前获得索引的共享写入流, 不存在时打开一个新的.
+     * 索引还没有分词器时保存本次的分词器, 已有分词器时本次指定的分词器必须与其一致, 否则抛出异常
+     *
+     * @param indexName 索引存储相对路径
+     * @param analyzerName Text形式索引使用的分词器名称, 为null时使用索引保存的分词器, 都没有时使用simple
+     * @return org.apache.lucene.index.IndexWriter
+     */
+    public static IndexWriter get(String indexName, String analyzerName) {
+        if (analyzerName != null) {
+            SchemaRegistry.bindAnalyzer(indexName, analyzerName);
+        } else if (SchemaRegistry.getAnalyzer(indexName) == null) {
+            SchemaRegistry.bindAnalyzer(indexName, AnalyzerRegistry.SIMPLE);
+        }
+        return get(indexName);
+    }
+
+    /**
+     * 获得索引的共享写入流, 不存在时打开一个新的. 不确定分词器, 用于检索, 删除及更新权重等不分词的操作
+     *
+     * @param indexName 索引存储相对路径
+     * @return org.apache.lucene.index.IndexWriter
+     */
+    public static IndexWriter get(String indexName) {
+        Holder holder = HOLDERS.get(indexName);
+        if (holder == null) {
+            synchronized (HOLDERS) {
+                holder = HOLDERS.get(indexName);
+                if (holder == null) {
+                    IndexWriter indexWriter = open(indexName);
+                    if (indexWriter == null) {
+                        return null;
+                    }
+                    holder = new Holder(indexWriter);
+                    HOLDERS.put(indexName, holder);
+                }
+            }
+        }
+        return holder.writer;
+    }
+
+    /**
+     * 获得索引已打开的写入流, 未打开时不会打开
+     *
+     * @param indexName 索引存储相对路径
+     * @return org.apache.lucene.index.IndexWriter 未打开时返回null
+     */
+    public static IndexWriter getIfOpen(String indexName) {
+        Holder holder = HOLDERS.get(indexName);
+        return holder == null ? null : holder.writer;
+    }
+
+    /**
+     * 索引的写入流是否已打开
+     *
+     * @param indexName 索引存储相对路径
+     * @return boolean
+     */
+    public static boolean isOpen(String indexName) {
+        return HOLDERS.containsKey(indexName);
+    }
+
+    /**
+     * 获得所有已打开的索引
+     *
+     * @return java.util.Set<java.lang.String>
+     */
+    public static Set<String> getOpenIndexes() {
+        return new HashSet<>(HOLDERS.keySet());
+    }
+
+    /**
+     * 写入后调用, 累计未提交的文档数, 达到commitMaxDocs时异步提交
+     *
+     * @param indexWriter 索引写入流
+     * @param count 本次写入的文档数
+     * @return void
+     */
+    public static void afterWrite(IndexWriter indexWriter, int count) {
+        for (Holder holder : HOLDERS.values()) {
+            if (holder.writer == indexWriter) {
+                if (holder.pending.addAndGet(count) >= commitMaxDocs) {
+                    scheduler.execute(() -> commit(holder));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 获得写入流的写入顺序锁. 普通写入持有读锁, 可以并发写入; 按查询删除持有写锁, 统计与删除之间没有其他写入
+     *
+     * @param indexWriter 索引写入流
+     * @return java.util.concurrent.locks.ReadWriteLock 不是由本类打开的写入流或已关闭时返回一个新的锁
+     */
+    public static ReadWriteLock getLock(IndexWriter indexWriter) {
+        for (Holder holder : HOLDERS.values()) {
+            if (holder.writer == indexWriter) {
+                return holder.lock;
+            }
+        }
+        return new ReentrantReadWriteLock();
+    }
+
+    /**
+     * 立即提交某个索引
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public static void commit(String indexName) {
+        Holder holder = HOLDERS.get(indexName);
+        if (holder != null) {
+            commit(holder);
+        }
+    }
+
+    /**
+     * 提交并关闭某个索引的写入流, 如删除整个索引文件夹前需要先关闭
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public static void close(String indexName) {
+        // 等待进行中的写入结束后再关闭, 之后的写入会因写入流已关闭而失败.
+        // 与写入时一致, 先获取写入顺序锁再获取检索器管理器及HOLDERS的锁, 避免死锁
+        Holder current = HOLDERS.get(indexName);
+        Lock lock = current == null ? null : current.lock.writeLock();
+        if (lock != null) {
+            lock.lock();
+        }
+        try {
+            // 先关闭基于该写入流的检索器管理器
+            SearcherRegistry.close(indexName);
+            // 关闭期间不允许重新打开同一个索引, 否则会因为写锁未释放而打开失败
+            synchronized (HOLDERS) {
+                Holder holder = HOLDERS.remove(indexName);
+                if (holder != null) {
+                    try {
+                        // close时默认会提交
+                        holder.writer.close();
+                        holder.writer.getDirectory().close();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 提交所有有变更的索引
+     *
+     * @return void
+     */
+    private static void commitAll() {
+        for (Holder holder : HOLDERS.values()) {
+            commit(holder);
+        }
+    }
+
+    private static void commit(Holder holder) {
+        IndexWriter indexWriter = holder.writer;
+        if (!indexWriter.isOpen() || !indexWriter.hasUncommittedChanges()) {
+            return;
+        }
+        try {
+            holder.pending.set(0);
+            indexWriter.commit();
+        } catch (IOException | RuntimeException e) {
+            // 不能抛出异常, 否则定时提交任务会被取消
+            e.printStackTrace();
+        }
+    }
+
+    private static IndexWriter open(String indexName) {
+        IndexWriterConfig config = new IndexWriterConfig(createAnalyzer(indexName));
+        LuceneProperties.IndexProperties indexProperties = luceneProperties.getIndex(indexName);
+        config.setRAMBufferSizeMB(indexProperties.getRamBufferSizeMb());
+        try {
+            config.setMergePolicy(createMergePolicy(indexProperties));
+            if (indexProperties.getMergeThreads() > 0) {
+                ConcurrentMergeScheduler mergeScheduler = new ConcurrentMergeScheduler();
+                // 与默认配置一致, 允许排队的合并数比线程数多5个, 超过后写入线程等待合并
+                mergeScheduler.setMaxMergesAndThreads(indexProperties.getMergeThreads() + 5, indexProperties.getMergeThreads());
+                config.setMergeScheduler(mergeScheduler);
+            }
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+            throw new RuntimeException("索引" + indexName + "的合并配置无效! ");
+        }
+        Sort indexSort = SortUtils.parse(indexProperties.getIndexSort(), SchemaRegistry.get(indexName));
+        if (indexSort != null) {
+            config.setIndexSort(indexSort);
+        }
+        IndexWriter indexWriter = null;
+        Directory directory = null;
+        try {
+            directory = DirectoryFactory.open(indexName);
+            indexWriter = new IndexWriter(directory, config);
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeDirectory(directory);
+        } catch (IllegalArgumentException e) {
+            // 已有的段使用了不同的索引排序
+            e.printStackTrace();
+            closeDirectory(directory);
+            throw new RuntimeException("索引排序与已有索引不一致, 请删除索引后重新创建! ");
+        }
+        return indexWriter;
+    }
+
+    /**
+     * 写入流创建失败时关闭已打开的Directory, 避免文件句柄及内存映射泄漏
+     *
+     * @param directory 可以为null
+     * @return void
+     */
+    private static void closeDirectory(Directory directory) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            directory.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 创建写入流的分词器, 每次分词时使用索引保存的分词器.
+     * 检索先于写入打开写入流时分词器还未确定, 之后第一次写入确定分词器后不需要重新打开写入流
+     *
+     * @param indexName 索引存储相对路径
+     * @return org.apache.lucene.analysis.Analyzer
+     */
+    private static Analyzer createAnalyzer(String indexName) {
+        return new DelegatingAnalyzerWrapper(Analyzer.PER_FIELD_REUSE_STRATEGY) {
+            @Override
+            protected Analyzer getWrappedAnalyzer(String fieldName) {
+                String analyzerName = SchemaRegistry.getAnalyzer(indexName);
+                return AnalyzerRegistry.get(analyzerName == null ? AnalyzerRegistry.SIMPLE : analyzerName);
+            }
+        };
+    }
+
+    /**
+     * 按索引配置创建合并策略, 段数越少检索时需要遍历的段越少
+     *
+     * @param indexProperties 索引配置
+     * @return org.apache.lucene.index.TieredMergePolicy
+     */
+    private static TieredMergePolicy createMergePolicy(LuceneProperties.IndexProperties indexProperties) {
+        TieredMergePolicy mergePolicy = new TieredMergePolicy();
+        mergePolicy.setSegmentsPerTier(indexProperties.getSegmentsPerTier());
+        mergePolicy.setMaxMergeAtOnce(indexProperties.getMaxMergeAtOnce());
+        mergePolicy.setMaxMergedSegmentMB(indexProperties.getMaxMergedSegmentMb());
+        mergePolicy.setFloorSegmentMB(indexProperties.getFloorSegmentMb());
+        return mergePolicy;
+    }
+
+    /**
+     * 一个索引的写入流及其提交状态
+     */
+    private static class Holder {
+        private final IndexWriter writer;
+        /**
+         * 上次提交后写入的文档数
+         */
+        private final AtomicLong pending = new AtomicLong();
+        /**
+         * 写入顺序锁
+         */
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private Holder(IndexWriter writer) {
+            this.writer = writer;
+        }
+    }
+}
@@ -1,35 +1,42 @@
 package com.paulandcode.utils;
 
+import com.paulandcode.config.LuceneProperties;
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
-import org.apache.lucene.analysis.core.SimpleAnalyzer;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.document.Field;
-import org.apache.lucene.document.StringField;
-import org.apache.lucene.document.TextField;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.index.*;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.*;
-import org.apache.lucene.search.highlight.*;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.LengthGoalBreakIterator;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
-import java.nio.file.Paths;
+import java.text.BreakIterator;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 
 /**
  * @Description: 操作Lucene
@@ -45,73 +52,40 @@ public class LuceneUtils {
     private static int luceneCacheTime;
 
     /**
-     * Lucene索引根路径
+     * Redis模板
      */
-    private static String rootPath;
+    private static RedisTemplate<String, Object> redisTemplate;
 
     /**
-     * Redis模板
+     * Lucene索引配置
      */
-    private static RedisTemplate<String, Object> redisTemplate;
+    private static LuceneProperties luceneProperties;
 
     /**
-     * 增加权重
+     * 未传分页游标时是否兼容旧的Redis分页, 关闭后检索不再访问Redis
+     */
+    private static boolean legacyPaging;
+
+    /**
+     * 高亮时最多分析的字符数
+     */
+    private static final int MAX_HIGHLIGHT_LENGTH = 50 * 1024;
+
+    /**
+     * 增加权重, 可以在每次点击某一条记录时调用. 只在内存中累加, 定时批量写入索引.
      * 
-     * @param params 参数
-     * @return boolean
+     * @param params indexName, keyFieldName(唯一主键域), keyFieldValue, weight(增加的权重, 默认为1)
+     * @return boolean 索引不存在时返回false
      */
     public static boolean addWeight(Map<String, Object> params) {
-        String indexName = params.get("indexName").toString();
+        String indexName = IndexAliases.resolve(params.get("indexName").toString());
         String keyFieldName = params.get("keyFieldName").toString();
         String keyFieldValue = params.get("keyFieldValue").toString();
-        String fieldName = params.get("fieldName").toString();
-        boolean isChinese = "1".equals(params.get("isChinese").toString());
-        boolean isText = "1".equals(params.get("isText").toString());
-        IndexReader indexReader = getIndexReader(indexName);
-        IndexWriter indexWriter = getIndexWriter(indexName, isChinese);
-        IndexSearcher searcher = new IndexSearcher(indexReader);
-        Analyzer analyzer;
-        // 如果是中文, 就用中文分词器, 否则使用西文分词器
-        if (isChinese) {
-            analyzer = new SmartChineseAnalyzer();
-        } else {
-            analyzer = new SimpleAnalyzer();
-        }
-        try {
-            // 通过唯一主键查询
-            Query query = new QueryParser(keyFieldName, analyzer).parse(keyFieldValue);
-            ScoreDoc[] scoreDocs = searcher.search(query, 1).scoreDocs;
-            if (scoreDocs.length == 0) {
-                return false;
-            }
-            Document doc = searcher.doc(scoreDocs[0].doc);
-            IndexableField indexableField = doc.getField(fieldName);
-            String value = indexableField.stringValue();
-            float boost = indexableField.boost();
-            IndexableField field;
-            if (isText) {
-                TextField textField = new TextField(fieldName, value, Field.Store.YES);
-                textField.setBoost(boost + 0.1f);
-                field = textField;
-            } else {
-                StringField stringField = new StringField(fieldName, value, Field.Store.YES);
-                stringField.setBoost(boost + 0.1f);
-                field = stringField;
-            }
-            // 由于没有更新, 所以先删除这个领域, 后添加新领域
-            doc.removeField(fieldName);
-            doc.add(field);
-            indexWriter.updateDocument(new Term(keyFieldName, doc.get(keyFieldName)), doc);
-        } catch (IOException | ParseException e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                indexWriter.close();
-                indexReader.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        long weight = StringUtils.isEmpty(params.get("weight")) ? 1 : Long.parseLong(params.get("weight").toString());
+        if (!IndexManager.exists(indexName)) {
+            return false;
         }
+        ClickWeights.add(indexName, new Term(keyFieldName, keyFieldValue), weight);
         return true;
     }
 
@@ -126,41 +100,41 @@ public class LuceneUtils {
         LuceneUtils.redisTemplate = redisTemplate;
     }
 
+    @Autowired
+    public void setLuceneProperties(LuceneProperties luceneProperties) {
+        LuceneUtils.luceneProperties = luceneProperties;
+    }
+
     @Value("${spring.redis.lucene-cache-time}")
     public void setLuceneCacheTime(int luceneCacheTime) {
         LuceneUtils.luceneCacheTime = luceneCacheTime;
     }
 
-    @Value("${spring.lucene.root-path}")
-    public void setRootPath(String rootPath) {
-        LuceneUtils.rootPath = rootPath;
+    @Value("${spring.lucene.legacy-paging}")
+    public void setLegacyPaging(boolean legacyPaging) {
+        LuceneUtils.legacyPaging = legacyPaging;
     }
 
     /**
-     * 获得索引写入流
+     * 获得写入数据的索引写入流, 每个索引共享一个长期打开的写入流, 使用后不需要关闭.
+     * 分词器与索引保存的分词器不一致时抛出异常
      *
      * @param indexName 索引存储相对路径
-     * @param isChinese Text形式索引是否为中文
+     * @param analyzerName Text形式索引使用的分词器名称, 为null时使用索引保存的分词器
      * @return org.apache.lucene.index.IndexWriter
      */
-    public static IndexWriter getIndexWriter(String indexName, boolean isChinese) {
-        Analyzer analyzer;
-        // 如果是中文, 就用中文分词器, 否则使用西文分词器
-        if (isChinese) {
-            analyzer = new SmartChineseAnalyzer();
-        } else {
-            analyzer = new SimpleAnalyzer();
-        }
-        IndexWriterConfig config = new IndexWriterConfig(analyzer);
-        Directory dir;//索引存储的位置
-        IndexWriter indexWriter = null;
-        try {
-            dir = FSDirectory.open(Paths.get(rootPath + indexName));
-            indexWriter = new IndexWriter(dir, config);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return indexWriter;
+    public static IndexWriter getIndexWriter(String indexName, String analyzerName) {
+        return IndexWriterRegistry.get(indexName, analyzerName);
+    }
+
+    /**
+     * 获得删除数据的索引写入流, 不确定索引的分词器
+     *
+     * @param indexName 索引存储相对路径
+     * @return org.apache.lucene.index.IndexWriter
+     */
+    public static IndexWriter getIndexWriter(String indexName) {
+        return IndexWriterRegistry.get(indexName);
     }
 
     /**
@@ -173,7 +147,7 @@ public class LuceneUtils {
         Directory dir; //获取要查询的路径，也就是索引所在的位置
         IndexReader indexReader = null;
         try {
-            dir = FSDirectory.open(Paths.get(rootPath + indexName));
+            dir = DirectoryFactory.open(indexName);
             indexReader = DirectoryReader.open(dir);
         } catch (IOException e) {
             e.printStackTrace();
@@ -182,67 +156,154 @@ public class LuceneUtils {
     }
 
     /**
-     * 删除整个索引文件夹
+     * 删除整个索引文件夹, 别名时删除其所有版本
      *
      * @param indexName
      * @return void
      */
     public static void deleteTheWholeIndex(String indexName) {
-        FileUtils.deleteAll(new File(rootPath + indexName));
+        IndexAliases.delete(indexName);
     }
 
     /**
-     * 创建索引
+     * 创建索引, 多线程批量写入
      *
+     * @param indexName 索引存储相对路径
      * @param indexWriter 索引写入流.
      * @param data 多条数据集合, 二维数据, 第一条为领域名称
      * @param textColumnNums 需要进行Text形式的索引的集合元素下标, 其他元素进行String形式索引
-     * @return void
+     * @return com.paulandcode.utils.BulkIndexer.Stats 写入统计, indexWriter为null时返回null
      */
-    public static void addIndexByListList(IndexWriter indexWriter, List<List<String>> data, List<Integer> textColumnNums) {
+    public static BulkIndexer.Stats addIndexByListList(String indexName, IndexWriter indexWriter, List<List<String>> data, List<Integer> textColumnNums) {
         if (indexWriter == null) {
-            return;
+            return null;
         }
         List<String> fieldNames = data.get(0);
+        FieldBuilder fieldBuilder = getFieldBuilder(indexName);
+        BulkIndexer<List<String>> bulkIndexer = new BulkIndexer<>(indexName, indexWriter,
+                oneData -> setListToDoc(fieldNames, textColumnNums, oneData, fieldBuilder), luceneProperties.getIndex(indexName));
         try {
             for (int i = 1; i < data.size(); i++) {
-                indexWriter.addDocument(setListToDoc(fieldNames, textColumnNums, data.get(i)));
+                bulkIndexer.add(data.get(i));
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         } finally {
-            try {
-                indexWriter.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            finishBulk(bulkIndexer);
         }
+        return bulkIndexer.getStats();
     }
 
     /**
-     * 创建索引
+     * 通过Excel创建索引, 边解析边多线程批量写入, 内存占用由队列长度决定, 与文件大小无关
      *
-     * @param indexWriter
-     * @param data
-     * @param textColumns
-     * @return void
+     * @param indexName 索引存储相对路径
+     * @param indexWriter 索引写入流
+     * @param file Excel文件, 读取第一个Sheet页, 第一行为领域名称
+     * @param textColumnNums 需要进行Text形式的索引的集合元素下标, 其他元素进行String形式索引
+     * @param job 异步任务, 用于报告进度, 同步执行时为null
+     * @return com.paulandcode.utils.BulkIndexer.Stats 写入统计, indexWriter为null时返回null
      */
-    public static void addIndexByListMap(IndexWriter indexWriter, List<Data> data, List<String> textColumns) {
+    public static BulkIndexer.Stats addIndexByExcel(String indexName, IndexWriter indexWriter, File file, List<Integer> textColumnNums, IndexJob job) {
         if (indexWriter == null) {
-            return;
+            return null;
+        }
+        // 第一行解析完后才会放入数据, 写入线程读取时已经有值
+        List<String> fieldNames = new ArrayList<>();
+        FieldBuilder fieldBuilder = getFieldBuilder(indexName);
+        BulkIndexer<List<String>> bulkIndexer = new BulkIndexer<>(indexName, indexWriter,
+                cells -> setListToDoc(fieldNames, textColumnNums, cells, fieldBuilder), luceneProperties.getIndex(indexName));
+        if (job != null) {
+            job.monitor(bulkIndexer);
         }
         try {
-            for (Data oneData: data) {
-                indexWriter.addDocument(setMapToDoc(textColumns, oneData));
+            FileUtils.readExcel(file, 0, cells -> {
+                if (fieldNames.isEmpty()) {
+                    fieldNames.addAll(cells);
+                } else {
+                    bulkIndexer.add(cells);
+                }
+            });
+        } finally {
+            finishBulk(bulkIndexer);
+        }
+        return bulkIndexer.getStats();
+    }
+
+    /**
+     * 通过Excel更新索引, 边解析边多线程更新
+     *
+     * @param indexName 索引存储相对路径
+     * @param indexWriter 索引写入流
+     * @param file Excel文件, 读取第一个Sheet页, 第一行为领域名称
+     * @param keywordColumnNum 关键词所在元素下标(一般为id等唯一字段)
+     * @param textColumnNums 需要进行Text形式的索引的集合元素下标, 其他元素进行String形式索引
+     * @param job 异步任务, 用于报告进度, 同步执行时为null
+     * @return com.paulandcode.utils.BulkIndexer.Stats 写入统计, indexWriter为null时返回null
+     */
+    public static BulkIndexer.Stats updateIndexByExcel(String indexName, IndexWriter indexWriter, File file, int keywordColumnNum, List<Integer> textColumnNums, IndexJob job) {
+        if (indexWriter == null) {
+            return null;
+        }
+        List<String> fieldNames = new ArrayList<>();
+        FieldBuilder fieldBuilder = getFieldBuilder(indexName);
+        BulkIndexer<List<String>> bulkIndexer = new BulkIndexer<>(indexName, indexWriter,
+                cells -> setListToDoc(fieldNames, textColumnNums, cells, fieldBuilder),
+                cells -> new Term(fieldNames.get(keywordColumnNum), cells.get(keywordColumnNum)),
+                luceneProperties.getIndex(indexName));
+        if (job != null) {
+            job.monitor(bulkIndexer);
+        }
+        try {
+            FileUtils.readExcel(file, 0, cells -> {
+                if (fieldNames.isEmpty()) {
+                    fieldNames.addAll(cells);
+                } else {
+                    bulkIndexer.add(cells);
+                }
+            });
+        } finally {
+            finishBulk(bulkIndexer);
+        }
+        return bulkIndexer.getStats();
+    }
+
+    /**
+     * 创建索引, 多线程批量写入
+     *
+     * @param indexName 索引存储相对路径
+     * @param indexWriter 索引写入流
+     * @param data 多条数据, 每条数据为领域名称与值的对应关系
+     * @param textColumns 需要进行Text形式的索引的领域名称, 其他领域进行String形式索引
+     * @return com.paulandcode.utils.BulkIndexer.Stats 写入统计, indexWriter为null时返回null
+     */
+    public static BulkIndexer.Stats addIndexByListMap(String indexName, IndexWriter indexWriter, List<Data> data, List<String> textColumns) {
+        if (indexWriter == null) {
+            return null;
+        }
+        FieldBuilder fieldBuilder = getFieldBuilder(indexName);
+        BulkIndexer<Data> bulkIndexer = new BulkIndexer<>(indexName, indexWriter,
+                oneData -> setMapToDoc(textColumns, oneData, fieldBuilder), luceneProperties.getIndex(indexName));
+        try {
+            for (Data oneData : data) {
+                bulkIndexer.add(oneData);
             }
+        } finally {
+            finishBulk(bulkIndexer);
+        }
+        return bulkIndexer.getStats();
+    }
+
+    /**
+     * 等待批量写入结束, 写入出错时抛出异常, 已写入的数据仍然保留
+     *
+     * @param bulkIndexer 批量写入
+     * @return void
+     */
+    private static void finishBulk(BulkIndexer<?> bulkIndexer) {
+        try {
+            bulkIndexer.finish();
         } catch (IOException e) {
             e.printStackTrace();
-        } finally {
-            try {
-                indexWriter.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
 
@@ -258,208 +319,654 @@ public class LuceneUtils {
         if (indexWriter == null) {
             return;
         }
+        Lock lock = IndexWriterRegistry.getLock(indexWriter).readLock();
+        lock.lock();
         try {
             indexWriter.deleteDocuments(new Term(fieldName, keyword));
+            IndexWriterRegistry.afterWrite(indexWriter, 1);
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
-            try {
-                indexWriter.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 批量删除. 只按主键删除时所有主键作为Term[]在一次deleteDocuments中删除, 否则按查询删除, 删除后提交一次并刷新检索器
+     *
+     * @param request 删除请求
+     * @return long 删除的数据条数, 由删除前刷新的检索器统计. 统计及删除期间持有写入顺序锁, 其他写入等待删除结束
+     */
+    public static long deleteIndex(DeleteRequest request) {
+        List<String> values = request.getValues() == null ? new ArrayList<>() : request.getValues();
+        List<SearchRequest.Clause> clauses = request.getClauses() == null ? new ArrayList<>() : request.getClauses();
+        if (values.isEmpty() && clauses.isEmpty()) {
+            throw new RuntimeException("删除条件不能为空! ");
+        }
+        if (!values.isEmpty() && StringUtils.isEmpty(request.getField())) {
+            throw new RuntimeException("主键域不能为空! ");
+        }
+        String indexName = request.getIndexName();
+        if (!IndexManager.exists(indexName)) {
+            return 0;
+        }
+        IndexWriter indexWriter = IndexWriterRegistry.get(indexName);
+        if (indexWriter == null) {
+            return 0;
+        }
+        IndexSchema schema = SchemaRegistry.get(indexName);
+        Term[] terms = null;
+        Query keyQuery = null;
+        if (!values.isEmpty()) {
+            String field = request.getField();
+            IndexSchema.FieldDef fieldDef = schema == null ? null : schema.getField(field);
+            IndexSchema.Type type = fieldDef == null ? IndexSchema.Type.KEYWORD : fieldDef.getType();
+            if (type == IndexSchema.Type.LONG || type == IndexSchema.Type.DATE) {
+                long[] points = new long[values.size()];
+                for (int i = 0; i < points.length; i++) {
+                    points[i] = fieldDef.toLong(values.get(i));
+                }
+                keyQuery = LongPoint.newSetQuery(field, points);
+            } else if (type == IndexSchema.Type.DOUBLE) {
+                double[] points = new double[values.size()];
+                for (int i = 0; i < points.length; i++) {
+                    points[i] = fieldDef.toDouble(values.get(i));
+                }
+                keyQuery = DoublePoint.newSetQuery(field, points);
+            } else {
+                terms = new Term[values.size()];
+                List<BytesRef> bytesRefs = new ArrayList<>(values.size());
+                for (int i = 0; i < terms.length; i++) {
+                    terms[i] = new Term(field, values.get(i));
+                    bytesRefs.add(terms[i].bytes());
+                }
+                keyQuery = new TermInSetQuery(field, bytesRefs);
+            }
+        }
+        Query query = clauses.isEmpty() ? keyQuery : buildQuery(keyQuery, clauses, schema);
+        Lock lock = IndexWriterRegistry.getLock(indexWriter).writeLock();
+        lock.lock();
+        try {
+            // 统计前刷新, 包含已写入但还未刷新的数据
+            SearcherRegistry.refresh(indexName);
+            long count = 0;
+            IndexSearcher searcher = SearcherRegistry.acquire(indexName);
+            if (searcher != null) {
+                try {
+                    count = searcher.count(query);
+                } finally {
+                    SearcherRegistry.release(searcher);
+                }
+            }
+            if (count == 0) {
+                return 0;
             }
+            if (terms != null && clauses.isEmpty()) {
+                indexWriter.deleteDocuments(terms);
+            } else {
+                indexWriter.deleteDocuments(query);
+            }
+            IndexWriterRegistry.commit(indexName);
+            SearcherRegistry.refresh(indexName);
+            return count;
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("删除索引失败! ");
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
      * 更新索引
      *
+     * @param indexName 索引存储相对路径
      * @param indexWriter 索引写入流
      * @param keywordColumnNum 关键词所在元素下标(一般为id等唯一字段, 输入整个id, 确保删除唯一数据)
      * @param data 多条数据集合, 二维数据, 第一条为领域名称
      * @param textColumnNums 需要进行Text形式的索引的集合元素下标, 其他元素进行String形式索引
      * @return void
      */
-    public static void updateIndexByListList(IndexWriter indexWriter, int keywordColumnNum, List<List<String>> data, List<Integer> textColumnNums) {
+    public static void updateIndexByListList(String indexName, IndexWriter indexWriter, int keywordColumnNum, List<List<String>> data, List<Integer> textColumnNums) {
         if (indexWriter == null) {
             return;
         }
         List<String> fieldNames = data.get(0);
+        FieldBuilder fieldBuilder = getFieldBuilder(indexName);
+        Lock lock = IndexWriterRegistry.getLock(indexWriter).readLock();
+        lock.lock();
         try {
             for (int i = 1; i < data.size(); i++) {
                 List<String> oneData = data.get(i);
-                indexWriter.updateDocument(new Term(fieldNames.get(keywordColumnNum), oneData.get(keywordColumnNum)), setListToDoc(fieldNames, textColumnNums, oneData));
+                indexWriter.updateDocument(new Term(fieldNames.get(keywordColumnNum), oneData.get(keywordColumnNum)), setListToDoc(fieldNames, textColumnNums, oneData, fieldBuilder));
             }
+            IndexWriterRegistry.afterWrite(indexWriter, data.size() - 1);
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
-            try {
-                indexWriter.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            lock.unlock();
         }
     }
 
     /**
      * 更新索引
      *
+     * @param indexName
      * @param indexWriter
      * @param keywordColumn
      * @param data
      * @param textColumns
      * @return void
      */
-    public static void updateIndexByListMap(IndexWriter indexWriter, String keywordColumn, List<Data> data, List<String> textColumns) {
+    public static void updateIndexByListMap(String indexName, IndexWriter indexWriter, String keywordColumn, List<Data> data, List<String> textColumns) {
         if (indexWriter == null) {
             return;
         }
+        FieldBuilder fieldBuilder = getFieldBuilder(indexName);
+        Lock lock = IndexWriterRegistry.getLock(indexWriter).readLock();
+        lock.lock();
         try {
             for (Data oneData: data) {
-                indexWriter.updateDocument(new Term(keywordColumn, oneData.get(keywordColumn)), setMapToDoc(textColumns, oneData));
+                indexWriter.updateDocument(new Term(keywordColumn, oneData.get(keywordColumn)), setMapToDoc(textColumns, oneData, fieldBuilder));
             }
+            IndexWriterRegistry.afterWrite(indexWriter, data.size());
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
-            try {
-                indexWriter.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            lock.unlock();
         }
     }
 
     /**
      * 根据关键字及相关条件进行检索
      *
-     * @param indexName 索引存储相对路径
-     * @param paging 是否分页, 如果分页, 则从上一次的分页缓存中获得数据, 并从上一次的缓存数据开始查找, 并将查找的最后一个结果放到缓存中
-     * @param isChinese Text形式索引是否为中文
-     * @param searchFieldName 要检索的检索域, 暂时没加入多检索域的检索功能
+     * @param indexName 索引存储相对路径或别名
+     * @param paging 是否使用旧的Redis分页, 只在未传cursor且开启了spring.lucene.legacy-paging时生效.
+     *               如果分页, 则从上一次的分页缓存中获得数据, 并从上一次的缓存数据开始查找, 并将查找的最后一个结果放到缓存中
+     * @param cursor 上一次检索返回的分页游标, 为空时从第一条开始检索
+     * @param analyzerName 分词器名称
+     * @param searchFieldName 要检索的检索域, 多个检索域使用search(SearchRequest)
      * @param resultFieldNames 要返回的检索域
      * @param keyword 检索关键字
      * @param num 本次检索的条数, 必须大于0
      * @param preTag 关键字高亮的前缀, 如果前后缀都为null或空字符串, 则代表不高亮
      * @param postTag 关键字高亮的后缀
-     * @return java.util.List<java.lang.String[]> String[]中为每个检索域内容, List中为各条检索结果
-     */
-    public static List<String[]> search(String indexName, boolean paging, boolean isChinese, String searchFieldName, String[] resultFieldNames, String keyword, int num, String preTag, String postTag) {
-        List<String[]> result = new ArrayList<>();
-        Analyzer analyzer;
-        // 如果是中文, 就用中文分词器, 否则使用西文分词器
-        if (isChinese) {
-            analyzer = new SmartChineseAnalyzer();
-        } else {
-            analyzer = new SimpleAnalyzer();
-        }
-        // 查询解析器
-        QueryParser parser = new QueryParser(searchFieldName, analyzer);
+     * @return com.paulandcode.utils.SearchResult 各条检索结果及下一页的分页游标
+     */
+    public static SearchResult search(String indexName, boolean paging, String cursor, String analyzerName, String searchFieldName, String[] resultFieldNames, String keyword, int num, String preTag, String postTag) {
+        SearchRequest request = new SearchRequest();
+        request.setIndexName(indexName);
+        request.setAnalyzer(analyzerName);
+        request.getFields().put(searchFieldName, 1f);
+        request.setResultFieldNames(Arrays.asList(resultFieldNames));
+        request.setKeyword(keyword);
+        request.setNum(num);
+        request.setCursor(cursor);
+        request.setPreTag(preTag);
+        request.setPostTag(postTag);
+        return search(request, true, paging);
+    }
+
+    /**
+     * 结构化检索, 支持多检索域及附加的查询条件, 不使用旧的Redis分页
+     *
+     * @param request 检索请求
+     * @return com.paulandcode.utils.SearchResult 各条检索结果及下一页的分页游标
+     */
+    public static SearchResult search(SearchRequest request) {
+        return search(request, false, false);
+    }
+
+    /**
+     * 检索
+     *
+     * @param request 检索请求
+     * @param legacyRequest 是否为旧的检索接口, 只有旧的检索接口兼容Redis分页
+     * @param paging 是否使用旧的Redis分页
+     * @return com.paulandcode.utils.SearchResult
+     */
+    private static SearchResult search(SearchRequest request, boolean legacyRequest, boolean paging) {
+        SearchMetrics.search();
+        SearchResult searchResult = new SearchResult();
+        List<String[]> result = searchResult.getData();
+        // 请求中的索引名称可以是别名, 游标签名使用别名
+        String indexName = IndexAliases.resolve(request.getIndexName());
+        String analyzerName = StringUtils.isEmpty(request.getAnalyzer()) ? AnalyzerRegistry.SIMPLE : request.getAnalyzer();
+        Analyzer analyzer = AnalyzerRegistry.get(analyzerName);
+        String keyword = request.getKeyword();
+        String cursor = request.getCursor();
+        String preTag = request.getPreTag();
+        String postTag = request.getPostTag();
+        String[] resultFieldNames = request.getResultFieldNames().toArray(new String[0]);
         // 查询的每个结果的字段数
         int fieldSize = resultFieldNames.length;
         ScoreDoc lastBottom = null;
-        String redisKey = rootPath + indexName + "_" + keyword;
-        if (paging) {
-            Object doc = redisTemplate.boundListOps(redisKey).rightPop();
-            Object score = redisTemplate.boundListOps(redisKey).rightPop();
-            Object shardIndex = redisTemplate.boundListOps(redisKey).rightPop();
-            if (doc != null && score != null && shardIndex != null) {
-                lastBottom = new ScoreDoc(Integer.parseInt(doc.toString()), Float.parseFloat(score.toString()), Integer.parseInt(shardIndex.toString()));
+        long searcherVersion = 0;
+        // 游标签名时加入检索条件, 防止游标被用于其他检索
+        String cursorContext = getCursorContext(request);
+        boolean redisPaging = legacyRequest && StringUtils.isEmpty(cursor) && legacyPaging;
+        String redisKey = IndexManager.getRootPath() + indexName + "_" + keyword;
+        if (!StringUtils.isEmpty(cursor)) {
+            CursorCodec.Cursor lastCursor = CursorCodec.decode(cursor, cursorContext);
+            lastBottom = lastCursor.getAfter();
+            searcherVersion = lastCursor.getSearcherVersion();
+            // 切换别名后继续在上一页的版本上翻页, 旧版本在保留期间不会关闭
+            if (lastCursor.getIndexName() != null && !lastCursor.getIndexName().equals(indexName)) {
+                indexName = lastCursor.getIndexName();
+                if (!IndexManager.exists(indexName)) {
+                    throw new RuntimeException("分页游标已过期, 请重新检索! ");
+                }
             }
+        } else if (redisPaging && paging) {
+            lastBottom = getLegacyCursor(redisKey);
         }
-        Query query;
+        // 关键字查询, 也用于高亮
+        Query query = null;
         TopDocs docs;
-        Highlighter highlighter = null;
-        IndexReader indexReader = null;
+        UnifiedHighlighter highlighter = null;
+        LuceneProperties.IndexProperties indexProperties = luceneProperties.getIndex(indexName);
+        // 从近实时检索器管理器中获取检索器, 不再每次打开索引. 翻页时尽量使用上一页的检索器
+        IndexSearcher searcher = SearcherRegistry.acquire(indexName, searcherVersion);
+        if (searcher == null) {
+            return searchResult;
+        }
         try {
-            // 获取要查询的路径，也就是索引所在的位置
-            Directory dir = FSDirectory.open(Paths.get(rootPath + indexName));
-            indexReader = DirectoryReader.open(dir);
-            IndexSearcher searcher = new IndexSearcher(indexReader);
             // 通过解析要查询的String, 获取查询对象.
-            query = parser.parse(keyword);
+            if (!StringUtils.isEmpty(keyword)) {
+                query = parseKeyword(request.getFields(), keyword, analyzer);
+            }
             // 是否创建高亮处理器
-            if (!StringUtils.isEmpty(preTag) || !StringUtils.isEmpty(postTag)) {
-                QueryScorer scorer = new QueryScorer(query);
-                Fragmenter fragmenter = new SimpleSpanFragmenter(scorer);
-                SimpleHTMLFormatter simpleHTMLFormatter = new SimpleHTMLFormatter(preTag == null ? "" : preTag, postTag == null ? "" : postTag);
-                highlighter = new Highlighter(simpleHTMLFormatter, scorer);
-                highlighter.setTextFragmenter(fragmenter);
+            if (query != null && (!StringUtils.isEmpty(preTag) || !StringUtils.isEmpty(postTag))) {
+                highlighter = createHighlighter(searcher, analyzer, indexProperties, preTag, postTag);
             }
-            // 开始查询, 查询前num条数据, 将记录保存在docs中.
-            BooleanQuery.Builder booleanQuery = new BooleanQuery.Builder();
-            // 可以添加多个查询条件, 这里暂时只支持一个
-            booleanQuery.add(query, BooleanClause.Occur.SHOULD);
-            docs = searcher.searchAfter(lastBottom, booleanQuery.build(), num);
+            IndexSchema schema = SchemaRegistry.get(indexName);
+            Query searchQuery = buildQuery(query, request.getClauses(), schema);
+            Sort sort = SortUtils.toSort(request.getSorts(), schema);
+            if (sort != null) {
+                sort = sort.rewrite(searcher);
+            }
+            // 统计与检索在同一次遍历中完成, 检索器有线程池时各分片并行收集后合并
+            SearchCollectorManager collectorManager = createCollectorManager(searcher, sort, lastBottom, request.getNum(),
+                    SortUtils.parse(indexProperties.getIndexSort(), schema), () -> FacetCollector.create(request.getFacets(), schema));
+            // 开始查询, 查询前num条数据, 将记录保存在docs中. 得分中加入点击权重, 高亮仍使用关键字查询.
+            // 按域排序且不按相关度排序时不计算得分, 也不需要点击权重
+            docs = searcher.search(sort == null || sort.needsScores() ? ClickWeights.boost(searchQuery) : searchQuery, collectorManager);
+            searchResult.setFacets(collectorManager.getFacets());
             ScoreDoc[] scoreDocs = docs.scoreDocs;
-            // 取出每条查询结果
-            for (ScoreDoc scoreDoc : scoreDocs) {
-                String[] oneResult = new String[fieldSize];
-                // scoreDocForFastJson.doc相当于docID,根据这个docID来获取文档
-                Document doc = searcher.doc(scoreDoc.doc);
-                // 是否高亮处理
-                if (highlighter == null) {
-                    for (int i = 0; i < fieldSize; i++) {
-                        oneResult[i] = doc.get(resultFieldNames[i]);
-                    }
-                } else {
+            // 一次高亮本页的所有结果, 保存了偏移量的域直接使用偏移量, 不需要重新分词
+            Map<String, String[]> highlights = null;
+            if (highlighter != null && scoreDocs.length > 0) {
+                int[] docIds = new int[scoreDocs.length];
+                for (int j = 0; j < scoreDocs.length; j++) {
+                    docIds[j] = scoreDocs[j].doc;
+                }
+                int[] maxPassages = new int[fieldSize];
+                Arrays.fill(maxPassages, indexProperties.getHighlightMaxPassages());
+                highlights = highlighter.highlightFields(resultFieldNames, query, docIds, maxPassages);
+            }
+            // 取出每条查询结果的原值, 只读取要返回的域
+            String[][] values = loadValues(searcher, scoreDocs, resultFieldNames, schema, request.isPreferDocValues());
+            for (int j = 0; j < scoreDocs.length; j++) {
+                String[] oneResult = values[j];
+                if (highlights != null) {
                     for (int i = 0; i < fieldSize; i++) {
-                        String fieldName = resultFieldNames[i];
-                        String preSubOneResult = doc.get(fieldName);
-                        TokenStream tokenStream = analyzer.tokenStream(fieldName, new StringReader(preSubOneResult));
-                        oneResult[i] = highlighter.getBestFragment(tokenStream, preSubOneResult);
+                        String highlight = highlights.get(resultFieldNames[i])[j];
+                        // 没有匹配的内容时高亮结果为null, 返回loadValues读取的原值
+                        if (!StringUtils.isEmpty(highlight)) {
+                            oneResult[i] = highlight;
+                        }
                     }
                 }
                 result.add(oneResult);
             }
-            redisTemplate.delete(redisTemplate.keys(redisKey));
-            if (paging && scoreDocs.length > 0) {
+            if (scoreDocs.length > 0) {
                 ScoreDoc scoreDoc = scoreDocs[scoreDocs.length - 1];
-                redisTemplate.boundListOps(redisKey).rightPush(scoreDoc.doc);
-                redisTemplate.boundListOps(redisKey).rightPush(scoreDoc.score);
-                redisTemplate.boundListOps(redisKey).rightPush(scoreDoc.shardIndex);
-                redisTemplate.expire(redisKey, luceneCacheTime, TimeUnit.SECONDS);
+                searchResult.setCursor(CursorCodec.encode(scoreDoc, indexName, SearcherRegistry.record(indexName, searcher), cursorContext));
             }
-        } catch (ParseException | IOException | InvalidTokenOffsetsException e) {
+            if (redisPaging) {
+                setLegacyCursor(redisKey, paging && scoreDocs.length > 0 ? scoreDocs[scoreDocs.length - 1] : null);
+            }
+        } catch (ParseException | IOException e) {
             e.printStackTrace();
         } finally {
-            if (indexReader != null) {
-                try {
-                    indexReader.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
+            SearcherRegistry.release(searcher);
+        }
+        return searchResult;
+    }
+
+    /**
+     * 创建检索的收集器管理器. 按域排序时排序值从列存储中读取, 只保留前num条结果.
+     * 第一页且检索的排序是索引排序的前缀时, 每个已排序的段收集够num条后提前结束, 不再遍历其余匹配的数据
+     *
+     * @param searcher 检索器
+     * @param sort 排序, 为null时按相关度排序
+     * @param after 上一页最后一条结果, 第一页为null
+     * @param num 本次检索的条数
+     * @param indexSort 索引排序, 没有配置时为null
+     * @param facetSupplier 创建统计收集器, 没有统计条件时返回null. 提前结束只影响检索的收集器, 统计仍遍历所有匹配的数据
+     * @return com.paulandcode.utils.SearchCollectorManager
+     */
+    private static SearchCollectorManager createCollectorManager(IndexSearcher searcher, Sort sort, ScoreDoc after, int num, Sort indexSort, Supplier<FacetCollector> facetSupplier) {
+        // 翻页时段内排在上一页之前的数据也会被计数, 提前结束会漏掉数据, 所以只在第一页使用
+        boolean earlyTerminate = sort != null && after == null && indexSort != null && EarlyTerminatingSortingCollector.canEarlyTerminate(sort, indexSort);
+        return new SearchCollectorManager(sort, after, getNumHits(searcher, num), earlyTerminate, facetSupplier);
+    }
+
+    /**
+     * 收集器保留的结果数, 与IndexSearcher.searchAfter一致, 不超过索引中的数据条数
+     */
+    private static int getNumHits(IndexSearcher searcher, int num) {
+        return Math.max(1, Math.min(num, searcher.getIndexReader().maxDoc()));
+    }
+
+    /**
+     * 读取各条结果要返回的域的原值. 按docID顺序读取, 顺序访问存储文件; 每条数据只解压并解析要返回的域.
+     * 域定义中开启了docValues但不存储原值的域, 或preferDocValues为true时开启了docValues的非TEXT域, 从列存储读取, 不访问存储文件
+     *
+     * @param searcher 检索器
+     * @param scoreDocs 各条结果
+     * @param resultFieldNames 要返回的检索域
+     * @param schema 索引的域定义, 可以为null
+     * @param preferDocValues 是否优先从列存储读取
+     * @return java.lang.String[][] 与scoreDocs顺序一致的各条结果的原值
+     */
+    private static String[][] loadValues(IndexSearcher searcher, ScoreDoc[] scoreDocs, String[] resultFieldNames, IndexSchema schema, boolean preferDocValues) throws IOException {
+        int fieldSize = resultFieldNames.length;
+        IndexSchema.FieldDef[] docValuesFields = new IndexSchema.FieldDef[fieldSize];
+        Set<String> storedFields = new HashSet<>();
+        for (int i = 0; i < fieldSize; i++) {
+            IndexSchema.FieldDef fieldDef = schema == null ? null : schema.getField(resultFieldNames[i]);
+            if (fieldDef != null && fieldDef.isDocValues() && (preferDocValues || !fieldDef.isStored())) {
+                docValuesFields[i] = fieldDef;
+            } else {
+                storedFields.add(resultFieldNames[i]);
+            }
+        }
+        Integer[] order = new Integer[scoreDocs.length];
+        for (int j = 0; j < order.length; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, Comparator.comparingInt(j -> scoreDocs[j].doc));
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        String[][] values = new String[scoreDocs.length][];
+        for (int j : order) {
+            int docId = scoreDocs[j].doc;
+            String[] oneResult = new String[fieldSize];
+            Document doc = storedFields.isEmpty() ? null : searcher.doc(docId, storedFields);
+            LeafReaderContext leaf = null;
+            for (int i = 0; i < fieldSize; i++) {
+                if (docValuesFields[i] == null) {
+                    oneResult[i] = doc.get(resultFieldNames[i]);
+                    continue;
+                }
+                if (leaf == null) {
+                    leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+                }
+                oneResult[i] = getDocValue(leaf.reader(), docId - leaf.docBase, resultFieldNames[i], docValuesFields[i]);
+            }
+            values[j] = oneResult;
+        }
+        return values;
+    }
+
+    /**
+     * 从列存储读取某条数据某个域的值, 转换为与存储原值相同的字符串形式
+     *
+     * @return java.lang.String 没有值时返回null
+     */
+    private static String getDocValue(LeafReader reader, int doc, String fieldName, IndexSchema.FieldDef fieldDef) throws IOException {
+        if (fieldDef.getType() == IndexSchema.Type.KEYWORD) {
+            SortedDocValues sortedValues = DocValues.getSorted(reader, fieldName);
+            int ord = sortedValues.getOrd(doc);
+            return ord < 0 ? null : sortedValues.lookupOrd(ord).utf8ToString();
+        }
+        if (!DocValues.getDocsWithField(reader, fieldName).get(doc)) {
+            return null;
+        }
+        long value = DocValues.getNumeric(reader, fieldName).get(doc);
+        switch (fieldDef.getType()) {
+            case DOUBLE:
+                return String.valueOf(Double.longBitsToDouble(value));
+            case DATE:
+                return fieldDef.format(value);
+            default:
+                return String.valueOf(value);
+        }
+    }
+
+    /**
+     * 解析关键字, 只有一个检索域且没有权重时与之前一样使用QueryParser, 否则使用MultiFieldQueryParser
+     *
+     * @param fields 检索域与其权重的对应关系
+     * @param keyword 检索关键字
+     * @param analyzer 分词器
+     * @return org.apache.lucene.search.Query
+     */
+    private static Query parseKeyword(Map<String, Float> fields, String keyword, Analyzer analyzer) throws ParseException {
+        if (fields == null || fields.isEmpty()) {
+            throw new RuntimeException("检索域不能为空! ");
+        }
+        String[] fieldNames = fields.keySet().toArray(new String[0]);
+        Float boost = fields.get(fieldNames[0]);
+        if (fieldNames.length == 1 && (boost == null || boost == 1f)) {
+            return new QueryParser(fieldNames[0], analyzer).parse(keyword);
+        }
+        return new MultiFieldQueryParser(fieldNames, analyzer, fields).parse(keyword);
+    }
+
+    /**
+     * 组合关键字查询与附加的查询条件. FILTER与MUST_NOT条件不参与打分, 可以被查询缓存复用
+     *
+     * @param query 关键字查询, 没有关键字时为null
+     * @param clauses 附加的查询条件
+     * @param schema 索引的域定义, 可以为null
+     * @return org.apache.lucene.search.Query
+     */
+    private static Query buildQuery(Query query, List<SearchRequest.Clause> clauses, IndexSchema schema) {
+        BooleanQuery.Builder booleanQuery = new BooleanQuery.Builder();
+        boolean positive = false;
+        if (query != null) {
+            booleanQuery.add(query, BooleanClause.Occur.MUST);
+            positive = true;
+        }
+        if (clauses != null) {
+            for (SearchRequest.Clause clause : clauses) {
+                BooleanClause.Occur occur = clause.getOccur() == null ? BooleanClause.Occur.FILTER : clause.getOccur();
+                booleanQuery.add(toQuery(clause, schema), occur);
+                positive |= occur != BooleanClause.Occur.MUST_NOT;
+            }
+        }
+        // 只有MUST_NOT条件时, 从所有数据中排除
+        if (!positive) {
+            booleanQuery.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        return booleanQuery.build();
+    }
+
+    /**
+     * 把附加的查询条件转换为查询. 域定义为数值或日期的域在数值点上检索, 其他域按字符串检索
+     *
+     * @param clause 查询条件
+     * @param schema 索引的域定义, 可以为null
+     * @return org.apache.lucene.search.Query
+     */
+    private static Query toQuery(SearchRequest.Clause clause, IndexSchema schema) {
+        String field = clause.getField();
+        if (StringUtils.isEmpty(field)) {
+            throw new RuntimeException("查询条件的检索域不能为空! ");
+        }
+        boolean range = clause.getType() == SearchRequest.ClauseType.RANGE;
+        String from = StringUtils.isEmpty(clause.getFrom()) ? null : clause.getFrom();
+        String to = StringUtils.isEmpty(clause.getTo()) ? null : clause.getTo();
+        IndexSchema.FieldDef fieldDef = schema == null ? null : schema.getField(field);
+        IndexSchema.Type type = fieldDef == null ? IndexSchema.Type.KEYWORD : fieldDef.getType();
+        switch (type) {
+            case LONG:
+            case DATE:
+                if (!range) {
+                    return LongPoint.newExactQuery(field, fieldDef.toLong(clause.getValue()));
+                }
+                long lowerLong = from == null ? Long.MIN_VALUE : fieldDef.toLong(from);
+                long upperLong = to == null ? Long.MAX_VALUE : fieldDef.toLong(to);
+                if (from != null && !clause.isIncludeLower()) {
+                    if (lowerLong == Long.MAX_VALUE) {
+                        return new MatchNoDocsQuery();
+                    }
+                    lowerLong++;
+                }
+                if (to != null && !clause.isIncludeUpper()) {
+                    if (upperLong == Long.MIN_VALUE) {
+                        return new MatchNoDocsQuery();
+                    }
+                    upperLong--;
                 }
+                return LongPoint.newRangeQuery(field, lowerLong, upperLong);
+            case DOUBLE:
+                if (!range) {
+                    return DoublePoint.newExactQuery(field, fieldDef.toDouble(clause.getValue()));
+                }
+                double lowerDouble = from == null ? Double.NEGATIVE_INFINITY : fieldDef.toDouble(from);
+                double upperDouble = to == null ? Double.POSITIVE_INFINITY : fieldDef.toDouble(to);
+                if (from != null && !clause.isIncludeLower()) {
+                    lowerDouble = Math.nextUp(lowerDouble);
+                }
+                if (to != null && !clause.isIncludeUpper()) {
+                    upperDouble = Math.nextDown(upperDouble);
+                }
+                return DoublePoint.newRangeQuery(field, lowerDouble, upperDouble);
+            default:
+                if (range) {
+                    return TermRangeQuery.newStringRange(field, from, to, clause.isIncludeLower(), clause.isIncludeUpper());
+                }
+                return new TermQuery(new Term(field, clause.getValue()));
+        }
+    }
+
+    /**
+     * 游标签名时使用的检索条件, 只有一个检索域时与之前的格式一致
+     *
+     * @param request 检索请求
+     * @return java.lang.String
+     */
+    private static String getCursorContext(SearchRequest request) {
+        StringBuilder context = new StringBuilder(request.getIndexName()).append("\n")
+                .append(String.join(",", request.getFields().keySet())).append("\n").append(request.getKeyword());
+        for (Map.Entry<String, Float> entry : request.getFields().entrySet()) {
+            if (entry.getValue() != null && entry.getValue() != 1f) {
+                context.append("\n").append(entry.getKey()).append("^").append(entry.getValue());
+            }
+        }
+        if (request.getClauses() != null) {
+            for (SearchRequest.Clause clause : request.getClauses()) {
+                context.append("\n").append(clause);
+            }
+        }
+        if (request.getSorts() != null && !request.getSorts().isEmpty()) {
+            context.append("\nsort:");
+            for (SearchRequest.SortOrder order : request.getSorts()) {
+                context.append(order).append(",");
+            }
+        }
+        return context.toString();
+    }
+
+    /**
+     * 创建基于偏移量的高亮处理器, 片段在句子边界处截断, 长度不小于highlightFragmentSize.
+     * 没有保存偏移量的域(如升级前创建的索引)会退回到重新分词. 没有匹配的域不返回片段, 由调用方返回原值.
+     *
+     * @param searcher 检索器
+     * @param analyzer 分词器, 用于没有保存偏移量的域
+     * @param indexProperties 索引配置
+     * @param preTag 关键字高亮的前缀
+     * @param postTag 关键字高亮的后缀
+     * @return org.apache.lucene.search.uhighlight.UnifiedHighlighter
+     */
+    private static UnifiedHighlighter createHighlighter(IndexSearcher searcher, Analyzer analyzer, LuceneProperties.IndexProperties indexProperties, String preTag, String postTag) {
+        UnifiedHighlighter highlighter = new UnifiedHighlighter(searcher, analyzer) {
+            @Override
+            protected int getMaxNoHighlightPassages(String field) {
+                // 没有匹配时返回null而不是截取开头的片段, 由调用方返回完整的原值
+                return 0;
             }
+        };
+        highlighter.setMaxLength(MAX_HIGHLIGHT_LENGTH);
+        highlighter.setFormatter(new DefaultPassageFormatter(preTag == null ? "" : preTag, postTag == null ? "" : postTag, "... ", false));
+        int fragmentSize = indexProperties.getHighlightFragmentSize();
+        highlighter.setBreakIterator(() -> LengthGoalBreakIterator.createMinLength(BreakIterator.getSentenceInstance(Locale.CHINESE), fragmentSize));
+        return highlighter;
+    }
+
+    /**
+     * 从Redis中读取旧分页方式的上一页最后一条结果, 只访问一次Redis
+     *
+     * @param redisKey 分页缓存的key
+     * @return org.apache.lucene.search.ScoreDoc 没有缓存时返回null
+     */
+    private static ScoreDoc getLegacyCursor(String redisKey) {
+        Object value;
+        try {
+            SearchMetrics.redisRoundTrip();
+            value = redisTemplate.opsForValue().get(redisKey);
+        } catch (DataAccessException e) {
+            // 升级前以List形式保存的分页缓存会读取失败, 当作没有缓存, 检索后会被覆盖
+            return null;
+        }
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.toString().split(",");
+        if (parts.length != 3) {
+            return null;
+        }
+        return new ScoreDoc(Integer.parseInt(parts[0]), Float.parseFloat(parts[1]), Integer.parseInt(parts[2]));
+    }
+
+    /**
+     * 保存旧分页方式的本页最后一条结果, 使用一条带过期时间的SET命令, 不需要再使用KEYS查找及单独设置过期时间
+     *
+     * @param redisKey 分页缓存的key
+     * @param scoreDoc 本页最后一条结果, 为null时删除分页缓存
+     * @return void
+     */
+    private static void setLegacyCursor(String redisKey, ScoreDoc scoreDoc) {
+        SearchMetrics.redisRoundTrip();
+        if (scoreDoc == null) {
+            redisTemplate.delete(redisKey);
+        } else {
+            String value = scoreDoc.doc + "," + scoreDoc.score + "," + scoreDoc.shardIndex;
+            redisTemplate.opsForValue().set(redisKey, value, luceneCacheTime, TimeUnit.SECONDS);
         }
-        return result;
     }
 
-    private static Document setMapToDoc(List<String> textColumns, Data oneData) {
+    /**
+     * 获得索引的域构建器, 按索引的域定义及是否保存偏移量构建域
+     *
+     * @param indexName 索引存储相对路径
+     * @return com.paulandcode.utils.FieldBuilder
+     */
+    private static FieldBuilder getFieldBuilder(String indexName) {
+        return new FieldBuilder(SchemaRegistry.get(indexName), luceneProperties.getIndex(indexName).isStoreOffsets());
+    }
+
+    private static Document setMapToDoc(List<String> textColumns, Data oneData, FieldBuilder fieldBuilder) {
         Document doc = new Document();
+        doc.add(new NumericDocValuesField(ClickWeights.WEIGHT_FIELD, 0));
         Set<Map.Entry<String, String>> entries = oneData.entrySet();
         for (Map.Entry<String, String> entry : entries) {
             String fieldName = entry.getKey();
-            if (textColumns.contains(fieldName)) {
-                doc.add(new TextField(fieldName, String.valueOf(entry.getValue()), Field.Store.YES));
-            } else {
-                doc.add(new StringField(fieldName, String.valueOf(entry.getValue()), Field.Store.YES));
-            }
+            fieldBuilder.add(doc, fieldName, String.valueOf(entry.getValue()), textColumns.contains(fieldName));
         }
         return doc;
     }
 
-    private static Document setListToDoc(List<String> fieldNames, List<Integer> textColumnNums, List<String> oneData) {
+    private static Document setListToDoc(List<String> fieldNames, List<Integer> textColumnNums, List<String> oneData, FieldBuilder fieldBuilder) {
         Document doc = new Document();
+        // 点击权重, 之后通过updateNumericDocValue更新
+        doc.add(new NumericDocValuesField(ClickWeights.WEIGHT_FIELD, 0));
         for (int j = 0; j < oneData.size(); j++) {
-            String fieldName = fieldNames.get(j);
-            String value = oneData.get(j);
-            if (textColumnNums.contains(j)) {
-                // 进行Text形式的索引, 一般用于文章等正文部分, 会被分词化.
-                // 分词化指一句话会被分成多个词, 输入一句话进行检索时不会被搜到.
-                doc.add(new TextField(fieldName, value, Field.Store.YES));
-            } else {
-                // 进行String形式的索引, 一般用于国家, ID等非正文内容, 不会被分词化
-                doc.add(new StringField(fieldName, value, Field.Store.YES));
-            }
+            // 有域定义时按域定义写入, 否则textColumnNums中的列进行Text形式的索引, 一般用于文章等正文部分, 会被分词化;
+            // 其他列进行String形式的索引, 一般用于国家, ID等非正文内容, 不会被分词化
+            fieldBuilder.add(doc, fieldNames.get(j), oneData.get(j), textColumnNums.contains(j));
         }
         return doc;
     }
@@ -0,0 +1,280 @@
+package com.paulandcode.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Description: 索引域定义注册表, 域定义保存在索引文件夹下的schema.json中, 读取后缓存在内存中
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 22:10
+ */
+@Component
+public class SchemaRegistry {
+    /**
+     * 域定义文件名称
+     */
+    public static final String FILE_NAME = "schema.json";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 索引名称与其域定义的对应关系, 没有域定义的索引也会缓存
+     */
+    private static final Map<String, Optional<IndexSchema>> SCHEMAS = new ConcurrentHashMap<>();
+
+    /**
+     * 获得索引的域定义
+     *
+     * @param indexName 索引存储相对路径
+     * @return com.paulandcode.utils.IndexSchema 没有域定义时返回null
+     */
+    public static IndexSchema get(String indexName) {
+        return SCHEMAS.computeIfAbsent(indexName, SchemaRegistry::load).orElse(null);
+    }
+
+    /**
+     * 获得索引保存的分词器名称
+     *
+     * @param indexName 索引存储相对路径
+     * @return java.lang.String 还未确定分词器时返回null
+     */
+    public static String getAnalyzer(String indexName) {
+        IndexSchema schema = get(indexName);
+        return schema == null ? null : schema.getAnalyzer();
+    }
+
+    /**
+     * 确定索引的分词器, 索引还没有分词器时保存该分词器, 已有时必须一致, 写入前调用
+     *
+     * @param indexName 索引存储相对路径
+     * @param analyzerName 分词器名称
+     * @return void
+     */
+    public static void bindAnalyzer(String indexName, String analyzerName) {
+        String bound = getAnalyzer(indexName);
+        if (bound == null) {
+            synchronized (SCHEMAS) {
+                IndexSchema old = get(indexName);
+                bound = old == null ? null : old.getAnalyzer();
+                if (bound == null) {
+                    // 不修改缓存中的域定义, 复制后保存
+                    IndexSchema schema = new IndexSchema();
+                    if (old != null) {
+                        schema.setFields(old.getFields());
+                    }
+                    schema.setAnalyzer(analyzerName);
+                    save(indexName, schema);
+                    return;
+                }
+            }
+        }
+        if (!bound.equals(analyzerName)) {
+            throw new RuntimeException("索引" + indexName + "使用分词器" + bound + "创建, 不能使用分词器" + analyzerName + "! ");
+        }
+    }
+
+    /**
+     * 保存索引的域定义, 已有的域不能修改类型及是否写入列存储, 已写入未定义类型数据的域不能定义为其他类型.
+     * 已确定的分词器不能修改, 未指定分词器时保留原分词器
+     *
+     * @param indexName 索引存储相对路径
+     * @param schema 域定义
+     * @return void
+     */
+    public static void save(String indexName, IndexSchema schema) {
+        validate(schema);
+        synchronized (SCHEMAS) {
+            IndexSchema old = get(indexName);
+            if (old != null) {
+                for (Map.Entry<String, IndexSchema.FieldDef> entry : old.getFields().entrySet()) {
+                    IndexSchema.FieldDef fieldDef = schema.getField(entry.getKey());
+                    if (fieldDef != null && (fieldDef.getType() != entry.getValue().getType()
+                            || fieldDef.isDocValues() != entry.getValue().isDocValues())) {
+                        throw new RuntimeException("域" + entry.getKey() + "的类型不能修改, 请删除索引后重新创建! ");
+                    }
+                }
+                if (schema.getAnalyzer() == null) {
+                    schema.setAnalyzer(old.getAnalyzer());
+                } else if (old.getAnalyzer() != null && !old.getAnalyzer().equals(schema.getAnalyzer())) {
+                    throw new RuntimeException("索引的分词器不能修改, 请删除索引后重新创建! ");
+                }
+            }
+            checkExistingData(indexName, old, schema);
+            if (schema.getAnalyzer() != null) {
+                // 不存在的分词器会抛出异常
+                AnalyzerRegistry.get(schema.getAnalyzer());
+            }
+            File dir = IndexManager.getFile(indexName);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new RuntimeException("创建索引文件夹失败! ");
+            }
+            File file = new File(dir, FILE_NAME);
+            File tempFile = new File(dir, FILE_NAME + ".tmp");
+            try {
+                Files.write(tempFile.toPath(), JSON.toJSONString(schema, SerializerFeature.PrettyFormat).getBytes(UTF_8));
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                e.printStackTrace();
+                throw new RuntimeException("保存域定义失败! ");
+            }
+            SCHEMAS.put(indexName, Optional.of(schema));
+        }
+    }
+
+    /**
+     * 清除缓存的域定义, 删除索引时调用
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public static void evict(String indexName) {
+        SCHEMAS.remove(indexName);
+    }
+
+    private static void validate(IndexSchema schema) {
+        if (schema == null || schema.getFields() == null) {
+            throw new RuntimeException("域定义不能为空! ");
+        }
+        for (Map.Entry<String, IndexSchema.FieldDef> entry : schema.getFields().entrySet()) {
+            IndexSchema.FieldDef fieldDef = entry.getValue();
+            if (fieldDef == null || fieldDef.getType() == null) {
+                throw new RuntimeException("域" + entry.getKey() + "没有指定类型! ");
+            }
+            if (fieldDef.getType() == IndexSchema.Type.TEXT && fieldDef.isDocValues()) {
+                throw new RuntimeException("TEXT类型的域" + entry.getKey() + "不支持列存储! ");
+            }
+            if (fieldDef.getType() == IndexSchema.Type.DATE) {
+                try {
+                    fieldDef.toLong(LocalDateTime.now().format(DateTimeFormatter.ofPattern(fieldDef.getDateFormat())));
+                } catch (RuntimeException e) {
+                    // 格式无效或格式化后无法解析回来
+                    throw new RuntimeException("域" + entry.getKey() + "的日期格式无效! ");
+                }
+            }
+        }
+    }
+
+    /**
+     * 检查新定义的域是否已写入过未定义类型的数据. 没有域定义时写入的是Text或String形式的数据,
+     * 定义为数值等类型后旧数据不能被范围检索, 排序及统计, 按主键更新时也匹配不到
+     *
+     * @param indexName 索引存储相对路径
+     * @param old 原域定义, 可以为null
+     * @param schema 新域定义
+     * @return void
+     */
+    private static void checkExistingData(String indexName, IndexSchema old, IndexSchema schema) {
+        List<String> newFields = new ArrayList<>();
+        for (String fieldName : schema.getFields().keySet()) {
+            if (old == null || old.getField(fieldName) == null) {
+                newFields.add(fieldName);
+            }
+        }
+        if (newFields.isEmpty()) {
+            return;
+        }
+        FieldInfos fieldInfos = readFieldInfos(indexName);
+        if (fieldInfos == null) {
+            return;
+        }
+        for (String fieldName : newFields) {
+            FieldInfo fieldInfo = fieldInfos.fieldInfo(fieldName);
+            IndexSchema.FieldDef fieldDef = schema.getField(fieldName);
+            if (fieldInfo != null && !isUntypedCompatible(fieldDef, fieldInfo)) {
+                throw new RuntimeException("域" + fieldName + "已写入未定义类型的数据, 不能定义为" + fieldDef.getType()
+                        + (fieldDef.isDocValues() ? "(列存储)" : "") + ", 请删除索引后重新创建! ");
+            }
+        }
+    }
+
+    /**
+     * 未定义类型的数据是否与新的域定义一致: Text形式对应TEXT, String形式对应不写入列存储的KEYWORD
+     */
+    private static boolean isUntypedCompatible(IndexSchema.FieldDef fieldDef, FieldInfo fieldInfo) {
+        if (fieldInfo.getPointDimensionCount() > 0 || fieldInfo.getDocValuesType() != DocValuesType.NONE) {
+            return false;
+        }
+        switch (fieldDef.getType()) {
+            case TEXT:
+                return fieldInfo.getIndexOptions().compareTo(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS) >= 0;
+            case KEYWORD:
+                return !fieldDef.isDocValues() && fieldInfo.getIndexOptions() == IndexOptions.DOCS;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 读取索引中所有已写入的域, 索引已打开时包含还未提交的数据
+     *
+     * @param indexName 索引存储相对路径
+     * @return org.apache.lucene.index.FieldInfos 还没有数据时返回null
+     */
+    private static FieldInfos readFieldInfos(String indexName) {
+        if (!IndexManager.exists(indexName)) {
+            return null;
+        }
+        try {
+            if (IndexWriterRegistry.isOpen(indexName)) {
+                SearcherRegistry.refresh(indexName);
+                IndexSearcher searcher = SearcherRegistry.acquire(indexName);
+                if (searcher == null) {
+                    return null;
+                }
+                try {
+                    return MultiFields.getMergedFieldInfos(searcher.getIndexReader());
+                } finally {
+                    SearcherRegistry.release(searcher);
+                }
+            }
+            try (Directory dir = FSDirectory.open(IndexManager.getFile(indexName).toPath())) {
+                if (!DirectoryReader.indexExists(dir)) {
+                    return null;
+                }
+                try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                    return MultiFields.getMergedFieldInfos(reader);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("读取索引的域失败! ");
+        }
+    }
+
+    private static Optional<IndexSchema> load(String indexName) {
+        File file = new File(IndexManager.getFile(indexName), FILE_NAME);
+        if (!file.isFile()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(JSON.parseObject(new String(Files.readAllBytes(file.toPath()), UTF_8), IndexSchema.class));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.paulandcode.utils;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.EarlyTerminatingSortingCollector;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MultiCollector;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopDocsCollector;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * @Description: 检索的收集器管理器. IndexSearcher有线程池时每个分片(slice)创建一个收集器并行收集, 最后合并前num条结果及统计结果;
+ *  没有线程池时只创建一个收集器, 与直接使用收集器相同.
+ *  分片按段的顺序划分, 合并时得分相同的结果仍按docID排序, 与翻页时searchAfter的顺序一致.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 23:40
+ */
+public class SearchCollectorManager implements CollectorManager<SearchCollectorManager.SliceCollector, TopDocs> {
+    /**
+     * 排序, 为null时按相关度排序
+     */
+    private final Sort sort;
+
+    /**
+     * 上一页最后一条结果, 第一页为null
+     */
+    private final ScoreDoc after;
+
+    /**
+     * 保留的结果数
+     */
+    private final int numHits;
+
+    /**
+     * 是否在每个已排序的段收集够numHits条后提前结束
+     */
+    private final boolean earlyTerminate;
+
+    /**
+     * 创建统计收集器, 没有统计条件时返回null
+     */
+    private final Supplier<FacetCollector> facetSupplier;
+
+    /**
+     * 合并后的统计结果
+     */
+    private Map<String, Map<String, Long>> facets;
+
+    public SearchCollectorManager(Sort sort, ScoreDoc after, int numHits, boolean earlyTerminate, Supplier<FacetCollector> facetSupplier) {
+        this.sort = sort;
+        this.after = after;
+        this.numHits = numHits;
+        this.earlyTerminate = earlyTerminate;
+        this.facetSupplier = facetSupplier;
+    }
+
+    @Override
+    public SliceCollector newCollector() throws IOException {
+        TopDocsCollector<?> topCollector;
+        Collector collector;
+        if (sort == null) {
+            topCollector = TopScoreDocCollector.create(numHits, after);
+            collector = topCollector;
+        } else {
+            topCollector = TopFieldCollector.create(sort, numHits, (FieldDoc) after, true, false, false);
+            collector = earlyTerminate ? new EarlyTerminatingSortingCollector(topCollector, sort, numHits) : topCollector;
+        }
+        return new SliceCollector(topCollector, collector, facetSupplier.get());
+    }
+
+    @Override
+    public TopDocs reduce(Collection<SliceCollector> collectors) throws IOException {
+        List<FacetCollector> facetCollectors = new ArrayList<>();
+        TopDocs[] shardHits = sort == null ? new TopDocs[collectors.size()] : new TopFieldDocs[collectors.size()];
+        int i = 0;
+        for (SliceCollector collector : collectors) {
+            shardHits[i++] = collector.topCollector.topDocs();
+            if (collector.facetCollector != null) {
+                facetCollectors.add(collector.facetCollector);
+            }
+        }
+        facets = facetCollectors.isEmpty() ? null : FacetCollector.merge(facetCollectors);
+        if (shardHits.length == 1) {
+            return shardHits[0];
+        }
+        return sort == null ? TopDocs.merge(numHits, shardHits) : TopDocs.merge(sort, numHits, (TopFieldDocs[]) shardHits);
+    }
+
+    /**
+     * 获得合并后的统计结果, 检索结束后调用
+     *
+     * @return java.util.Map<java.lang.String,java.util.Map<java.lang.String,java.lang.Long>> 没有统计条件时返回null
+     */
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+
+    /**
+     * 一个分片的收集器, 组合了结果收集器与统计收集器
+     */
+    public static class SliceCollector implements Collector {
+        private final TopDocsCollector<?> topCollector;
+
+        private final FacetCollector facetCollector;
+
+        private final Collector collector;
+
+        private SliceCollector(TopDocsCollector<?> topCollector, Collector collector, FacetCollector facetCollector) {
+            this.topCollector = topCollector;
+            this.facetCollector = facetCollector;
+            // 为null的收集器会被忽略, 提前结束只影响结果收集器
+            this.collector = MultiCollector.wrap(collector, facetCollector);
+        }
+
+        @Override
+        public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+            return collector.getLeafCollector(context);
+        }
+
+        @Override
+        public boolean needsScores() {
+            return collector.needsScores();
+        }
+    }
+}
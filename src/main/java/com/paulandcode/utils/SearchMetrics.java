@@ -0,0 +1,59 @@
+package com.paulandcode.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description: 检索相关的统计指标, 进程内累计, 重启后清零
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 18:40
+ */
+public class SearchMetrics {
+    /**
+     * 检索次数
+     */
+    private static final LongAdder SEARCHES = new LongAdder();
+
+    /**
+     * 检索过程中访问Redis的次数
+     */
+    private static final LongAdder REDIS_ROUND_TRIPS = new LongAdder();
+
+    private SearchMetrics() {
+    }
+
+    /**
+     * 记录一次检索
+     *
+     * @return void
+     */
+    public static void search() {
+        SEARCHES.increment();
+    }
+
+    /**
+     * 记录一次Redis访问
+     *
+     * @return void
+     */
+    public static void redisRoundTrip() {
+        REDIS_ROUND_TRIPS.increment();
+    }
+
+    /**
+     * 获得当前的统计指标
+     *
+     * @return java.util.Map<java.lang.String,java.lang.Object>
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long searches = SEARCHES.sum();
+        long redisRoundTrips = REDIS_ROUND_TRIPS.sum();
+        result.put("searches", searches);
+        result.put("redisRoundTrips", redisRoundTrips);
+        result.put("redisRoundTripsPerSearch", searches == 0 ? 0 : (double) redisRoundTrips / searches);
+        return result;
+    }
+}
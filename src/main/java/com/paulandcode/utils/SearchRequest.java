@@ -0,0 +1,455 @@
+package com.paulandcode.utils;
+
+import org.apache.lucene.search.BooleanClause;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: 结构化检索请求.
+ *  keyword在fields中的多个检索域中检索, 每个检索域可以设置权重. clauses为附加的查询条件,
+ *  FILTER与MUST_NOT条件不参与打分, 会被IndexSearcher的查询缓存(LRUQueryCache)缓存, 多次检索时可以复用.
+ *  sorts为空时按相关度排序, 否则按列存储中的域值排序, 分页游标中会保存上一页最后一条结果的排序值.
+ *  facets为统计条件, 与检索在同一次遍历中从列存储中统计所有匹配的数据, 不需要按每个分类分别检索.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 21:40
+ */
+public class SearchRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 索引存储相对路径或别名
+     */
+    private String indexName;
+
+    /**
+     * 分词器名称, 索引已保存分词器时忽略, 都没有时使用simple
+     */
+    private String analyzer;
+
+    /**
+     * 检索关键字, 为空时只按clauses检索
+     */
+    private String keyword;
+
+    /**
+     * 检索域与其权重的对应关系
+     */
+    private Map<String, Float> fields = new LinkedHashMap<>();
+
+    /**
+     * 附加的查询条件
+     */
+    private List<Clause> clauses = new ArrayList<>();
+
+    /**
+     * 排序条件, 为空时按相关度排序
+     */
+    private List<SortOrder> sorts = new ArrayList<>();
+
+    /**
+     * 统计条件, 为空时不统计
+     */
+    private List<Facet> facets = new ArrayList<>();
+
+    /**
+     * 要返回的检索域
+     */
+    private List<String> resultFieldNames = new ArrayList<>();
+
+    /**
+     * 返回的域在域定义中开启了docValues时是否从列存储读取, 适用于较短的KEYWORD及数值域, 不需要访问存储文件
+     */
+    private boolean preferDocValues;
+
+    /**
+     * 本次检索的条数
+     */
+    private int num = 10;
+
+    /**
+     * 上一次检索返回的分页游标, 为空时从第一条开始检索
+     */
+    private String cursor;
+
+    /**
+     * 关键字高亮的前缀, 如果前后缀都为空, 则代表不高亮
+     */
+    private String preTag;
+
+    /**
+     * 关键字高亮的后缀
+     */
+    private String postTag;
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public String getAnalyzer() {
+        return analyzer;
+    }
+
+    public void setAnalyzer(String analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public void setKeyword(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public Map<String, Float> getFields() {
+        return fields;
+    }
+
+    public void setFields(Map<String, Float> fields) {
+        this.fields = fields;
+    }
+
+    public List<Clause> getClauses() {
+        return clauses;
+    }
+
+    public void setClauses(List<Clause> clauses) {
+        this.clauses = clauses;
+    }
+
+    public List<SortOrder> getSorts() {
+        return sorts;
+    }
+
+    public void setSorts(List<SortOrder> sorts) {
+        this.sorts = sorts;
+    }
+
+    public List<Facet> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(List<Facet> facets) {
+        this.facets = facets;
+    }
+
+    public List<String> getResultFieldNames() {
+        return resultFieldNames;
+    }
+
+    public void setResultFieldNames(List<String> resultFieldNames) {
+        this.resultFieldNames = resultFieldNames;
+    }
+
+    public boolean isPreferDocValues() {
+        return preferDocValues;
+    }
+
+    public void setPreferDocValues(boolean preferDocValues) {
+        this.preferDocValues = preferDocValues;
+    }
+
+    public int getNum() {
+        return num;
+    }
+
+    public void setNum(int num) {
+        this.num = num;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public String getPreTag() {
+        return preTag;
+    }
+
+    public void setPreTag(String preTag) {
+        this.preTag = preTag;
+    }
+
+    public String getPostTag() {
+        return postTag;
+    }
+
+    public void setPostTag(String postTag) {
+        this.postTag = postTag;
+    }
+
+    /**
+     * 查询条件的类型
+     */
+    public enum ClauseType {
+        /**
+         * 精确匹配, 用于String形式索引的域
+         */
+        TERM,
+        /**
+         * 范围匹配
+         */
+        RANGE
+    }
+
+    /**
+     * 附加的查询条件
+     */
+    public static class Clause implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 条件的作用: MUST, SHOULD, FILTER, MUST_NOT
+         */
+        private BooleanClause.Occur occur = BooleanClause.Occur.FILTER;
+
+        /**
+         * 条件的类型
+         */
+        private ClauseType type = ClauseType.TERM;
+
+        /**
+         * 检索域
+         */
+        private String field;
+
+        /**
+         * TERM条件的值
+         */
+        private String value;
+
+        /**
+         * RANGE条件的下限, 为空时不限
+         */
+        private String from;
+
+        /**
+         * RANGE条件的上限, 为空时不限
+         */
+        private String to;
+
+        /**
+         * RANGE条件是否包含下限
+         */
+        private boolean includeLower = true;
+
+        /**
+         * RANGE条件是否包含上限
+         */
+        private boolean includeUpper = true;
+
+        public BooleanClause.Occur getOccur() {
+            return occur;
+        }
+
+        public void setOccur(BooleanClause.Occur occur) {
+            this.occur = occur;
+        }
+
+        public ClauseType getType() {
+            return type;
+        }
+
+        public void setType(ClauseType type) {
+            this.type = type;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public void setField(String field) {
+            this.field = field;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public void setFrom(String from) {
+            this.from = from;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        public void setTo(String to) {
+            this.to = to;
+        }
+
+        public boolean isIncludeLower() {
+            return includeLower;
+        }
+
+        public void setIncludeLower(boolean includeLower) {
+            this.includeLower = includeLower;
+        }
+
+        public boolean isIncludeUpper() {
+            return includeUpper;
+        }
+
+        public void setIncludeUpper(boolean includeUpper) {
+            this.includeUpper = includeUpper;
+        }
+
+        @Override
+        public String toString() {
+            if (type == ClauseType.RANGE) {
+                return occur + " " + field + ":" + (includeLower ? "[" : "{") + from + " TO " + to + (includeUpper ? "]" : "}");
+            }
+            return occur + " " + field + ":" + value;
+        }
+    }
+
+    /**
+     * 排序条件
+     */
+    public static class SortOrder implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 排序域, 必须在域定义中开启docValues. _score为相关度, _weight为点击权重
+         */
+        private String field;
+
+        /**
+         * 是否倒序, 相关度不倒序时从高到低
+         */
+        private boolean reverse;
+
+        public String getField() {
+            return field;
+        }
+
+        public void setField(String field) {
+            this.field = field;
+        }
+
+        public boolean isReverse() {
+            return reverse;
+        }
+
+        public void setReverse(boolean reverse) {
+            this.reverse = reverse;
+        }
+
+        @Override
+        public String toString() {
+            return field + (reverse ? ":desc" : ":asc");
+        }
+    }
+
+    /**
+     * 统计条件. KEYWORD类型的域统计每个值的数据条数, 数值及日期类型的域统计每个区间的数据条数
+     */
+    public static class Facet implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 统计域, 必须在域定义中开启docValues
+         */
+        private String field;
+
+        /**
+         * 按值统计时返回条数最多的前size个值, 不大于0时返回所有值
+         */
+        private int size = 10;
+
+        /**
+         * 数值及日期类型的域的统计区间
+         */
+        private List<Range> ranges = new ArrayList<>();
+
+        public String getField() {
+            return field;
+        }
+
+        public void setField(String field) {
+            this.field = field;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public List<Range> getRanges() {
+            return ranges;
+        }
+
+        public void setRanges(List<Range> ranges) {
+            this.ranges = ranges;
+        }
+    }
+
+    /**
+     * 统计区间, 包含下限, 不包含上限
+     */
+    public static class Range implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 区间名称, 为空时为"下限 TO 上限"
+         */
+        private String label;
+
+        /**
+         * 下限, 为空时不限
+         */
+        private String from;
+
+        /**
+         * 上限, 为空时不限
+         */
+        private String to;
+
+        public String getLabel() {
+            return label;
+        }
+
+        public void setLabel(String label) {
+            this.label = label;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public void setFrom(String from) {
+            this.from = from;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        public void setTo(String to) {
+            this.to = to;
+        }
+    }
+}
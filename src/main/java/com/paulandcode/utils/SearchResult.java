@@ -0,0 +1,55 @@
+package com.paulandcode.utils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: 检索结果
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 17:20
+ */
+public class SearchResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 各条检索结果, String[]中为每个检索域内容
+     */
+    private List<String[]> data = new ArrayList<>();
+
+    /**
+     * 下一页的分页游标, 没有结果时为null
+     */
+    private String cursor;
+
+    /**
+     * 统计域与其统计结果的对应关系, 统计结果为值(或区间名称)与数据条数的对应关系, 没有统计条件时为null
+     */
+    private Map<String, Map<String, Long>> facets;
+
+    public List<String[]> getData() {
+        return data;
+    }
+
+    public void setData(List<String[]> data) {
+        this.data = data;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Long>> facets) {
+        this.facets = facets;
+    }
+}
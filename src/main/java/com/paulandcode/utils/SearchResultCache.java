@@ -0,0 +1,163 @@
+package com.paulandcode.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * @Description: 检索结果的两级缓存, 一级为进程内的Caffeine缓存, 二级为Redis缓存(short_cache).
+ *  缓存的key中包含索引当前检索器的版本, 索引有新数据可检索(提交或近实时刷新)后版本变化, 旧的缓存自然不再命中,
+ *  同时一级缓存中该索引的旧数据会被立即清除, 二级缓存中的旧数据等待过期.
+ *  未配置cursor-secret时每个实例的游标签名密钥不同, 带分页游标的检索结果只放入一级缓存, 不写入二级缓存.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 19:25
+ */
+@Component
+public class SearchResultCache {
+    /**
+     * 二级缓存使用的Redis缓存名称
+     */
+    private static final String L2_CACHE_NAME = "short_cache";
+
+    /**
+     * key中各部分的分隔符
+     */
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 一级缓存的最大条数
+     */
+    @Value("${spring.lucene.result-cache-size}")
+    private long resultCacheSize;
+
+    /**
+     * 一级缓存的过期时间, 单位: 秒.
+     */
+    @Value("${spring.lucene.result-cache-ttl}")
+    private long resultCacheTtl;
+
+    /**
+     * 是否使用二级缓存, 多个实例的索引数据不一致时应关闭
+     */
+    @Value("${spring.lucene.result-cache-l2}")
+    private boolean resultCacheL2;
+
+    /**
+     * 分页游标的签名密钥, 为空时游标不能在实例间共享
+     */
+    @Value("${spring.lucene.cursor-secret}")
+    private String cursorSecret;
+
+    private final CacheManager cacheManager;
+
+    private Cache<String, Object> l1;
+
+    @Autowired
+    public SearchResultCache(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @PostConstruct
+    public void init() {
+        l1 = Caffeine.newBuilder()
+                .maximumSize(resultCacheSize)
+                .expireAfterWrite(resultCacheTtl, TimeUnit.SECONDS)
+                .build();
+        SearcherRegistry.addListener(this::invalidate);
+    }
+
+    /**
+     * 从缓存中获取检索结果, 两级缓存都没有时执行loader并放入缓存
+     *
+     * @param indexName 索引存储相对路径
+     * @param analyzerName 分词器名称
+     * @param type 结果类型
+     * @param loader 执行检索
+     * @param keyParts 检索条件, 如检索域, 关键字, 条数, 高亮前后缀等
+     * @return T
+     */
+    public <T> T get(String indexName, String analyzerName, Class<T> type, Supplier<T> loader, Object... keyParts) {
+        long version = SearcherRegistry.getVersion(indexName);
+        if (version < 0) {
+            return loader.get();
+        }
+        StringBuilder keyBuilder = new StringBuilder(indexName).append(SEPARATOR).append(version)
+                .append(SEPARATOR).append(analyzerName).append(SEPARATOR).append(type.getSimpleName());
+        for (Object keyPart : keyParts) {
+            keyBuilder.append(SEPARATOR).append(keyPart);
+        }
+        String key = keyBuilder.toString();
+        Object value = l1.getIfPresent(key);
+        if (type.isInstance(value)) {
+            return type.cast(value);
+        }
+        T result = getL2(key, type);
+        if (result == null) {
+            result = loader.get();
+            putL2(key, result);
+        }
+        if (result != null) {
+            l1.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * 清除一级缓存中某个索引的数据
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public void invalidate(String indexName) {
+        String prefix = indexName + SEPARATOR;
+        l1.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * 是否可以被其他实例使用, 游标由本实例随机生成的密钥签名时不能
+     *
+     * @param value 检索结果
+     * @return boolean
+     */
+    private boolean isShareable(Object value) {
+        return !StringUtils.isEmpty(cursorSecret) || !(value instanceof SearchResult)
+                || StringUtils.isEmpty(((SearchResult) value).getCursor());
+    }
+
+    private <T> T getL2(String key, Class<T> type) {
+        if (!resultCacheL2) {
+            return null;
+        }
+        try {
+            org.springframework.cache.Cache cache = cacheManager.getCache(L2_CACHE_NAME);
+            return cache == null ? null : cache.get(key, type);
+        } catch (RuntimeException e) {
+            // Redis不可用时不影响检索
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void putL2(String key, Object value) {
+        if (!resultCacheL2 || value == null || !isShareable(value)) {
+            return;
+        }
+        try {
+            org.springframework.cache.Cache cache = cacheManager.getCache(L2_CACHE_NAME);
+            if (cache != null) {
+                cache.put(key, value);
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.paulandcode.utils;
+
+import com.paulandcode.config.LuceneProperties;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.SearcherLifetimeManager;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * @Description: 近实时检索器注册表, 每个索引保持一个基于共享IndexWriter的SearcherManager.
+ *  检索时从中获取检索器, 用完后释放, 不再每次打开和关闭IndexReader.
+ *  后台线程每隔maxStaleness毫秒刷新一次, 所以写入的数据最多延迟maxStaleness毫秒即可被检索到.
+ *  分页时通过SearcherLifetimeManager保留上一页使用的检索器cursorMaxAge秒, 使翻页时的结果不受新写入数据的影响.
+ *  开启了parallelSearch的较大索引, 检索器使用共享的searchThreads个线程并行检索各分片.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 11:05
+ */
+@Component
+public class SearcherRegistry {
+    /**
+     * 检索结果允许的最大延迟, 单位: 毫秒.
+     */
+    private static long maxStaleness;
+
+    /**
+     * 分页使用的旧检索器保留时间, 单位: 秒.
+     */
+    private static double cursorMaxAge;
+
+    /**
+     * 索引名称与其检索器管理器的对应关系
+     */
+    private static final Map<String, SearcherManager> MANAGERS = new ConcurrentHashMap<>();
+
+    /**
+     * 索引名称与其分页检索器保留管理器的对应关系
+     */
+    private static final Map<String, SearcherLifetimeManager> LIFETIMES = new ConcurrentHashMap<>();
+
+    /**
+     * 检索器刷新出新数据时的监听器, 参数为索引名称
+     */
+    private static final List<Consumer<String>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    /**
+     * 定时刷新检索器的线程
+     */
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * 并行检索的线程数, 不大于0时不并行检索
+     */
+    private static int searchThreads;
+
+    /**
+     * 并行检索等待执行的分片队列长度, 队列满时由请求线程执行
+     */
+    private static int searchQueueCapacity;
+
+    /**
+     * 所有索引共享的并行检索线程池
+     */
+    private static ThreadPoolExecutor searchExecutor;
+
+    /**
+     * Lucene索引配置
+     */
+    private static LuceneProperties luceneProperties;
+
+    @Value("${spring.lucene.max-staleness}")
+    public void setMaxStaleness(long maxStaleness) {
+        SearcherRegistry.maxStaleness = maxStaleness;
+    }
+
+    @Value("${spring.lucene.search-threads}")
+    public void setSearchThreads(int searchThreads) {
+        SearcherRegistry.searchThreads = searchThreads;
+    }
+
+    @Value("${spring.lucene.search-queue-capacity}")
+    public void setSearchQueueCapacity(int searchQueueCapacity) {
+        SearcherRegistry.searchQueueCapacity = searchQueueCapacity;
+    }
+
+    @Autowired
+    public void setLuceneProperties(LuceneProperties luceneProperties) {
+        SearcherRegistry.luceneProperties = luceneProperties;
+    }
+
+    @Value("${spring.lucene.cursor-max-age}")
+    public void setCursorMaxAge(double cursorMaxAge) {
+        SearcherRegistry.cursorMaxAge = cursorMaxAge;
+    }
+
+    /**
+     * 启动定时刷新线程
+     *
+     * @return void
+     */
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lucene-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(SearcherRegistry::refreshAll, maxStaleness, maxStaleness, TimeUnit.MILLISECONDS);
+        if (searchThreads > 0) {
+            AtomicInteger threadNum = new AtomicInteger();
+            searchExecutor = new ThreadPoolExecutor(searchThreads, searchThreads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(searchQueueCapacity), r -> {
+                        Thread thread = new Thread(r, "lucene-search-" + threadNum.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+    }
+
+    /**
+     * Spring容器关闭时, 停止刷新并关闭所有检索器管理器
+     *
+     * @return void
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        for (String indexName : MANAGERS.keySet()) {
+            close(indexName);
+        }
+        if (searchExecutor != null) {
+            searchExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 获取索引的检索器, 使用完后必须调用release释放.
+     *
+     * @param indexName 索引存储相对路径
+     * @return org.apache.lucene.search.IndexSearcher 索引不存在时返回null
+     */
+    public static IndexSearcher acquire(String indexName) {
+        return acquire(indexName, true);
+    }
+
+    /**
+     * 获取索引的检索器
+     *
+     * @param indexName 索引存储相对路径
+     * @param retry 检索器管理器被并发关闭时是否重新获取一次
+     * @return org.apache.lucene.search.IndexSearcher 索引不存在时返回null
+     */
+    private static IndexSearcher acquire(String indexName, boolean retry) {
+        SearcherManager manager = MANAGERS.get(indexName);
+        if (manager == null) {
+            synchronized (MANAGERS) {
+                manager = MANAGERS.get(indexName);
+                if (manager == null) {
+                    manager = open(indexName);
+                    if (manager == null) {
+                        return null;
+                    }
+                    manager.addListener(new ReferenceManager.RefreshListener() {
+                        @Override
+                        public void beforeRefresh() {
+                        }
+
+                        @Override
+                        public void afterRefresh(boolean didRefresh) {
+                            if (didRefresh) {
+                                notifyListeners(indexName);
+                            }
+                        }
+                    });
+                    LIFETIMES.put(indexName, new SearcherLifetimeManager());
+                    MANAGERS.put(indexName, manager);
+                }
+            }
+        }
+        try {
+            return manager.acquire();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        } catch (AlreadyClosedException e) {
+            // 获取期间索引被关闭(如切换别名后清理旧版本), 重新获取一次; 索引已删除时返回null
+            return retry ? acquire(indexName, false) : null;
+        }
+    }
+
+    /**
+     * 获取分页游标中记录的检索器, 已经过期时获取最新的检索器. 使用完后必须调用release释放.
+     *
+     * @param indexName 索引存储相对路径
+     * @param searcherVersion 分页游标中记录的检索器版本, 不大于0时获取最新的检索器
+     * @return org.apache.lucene.search.IndexSearcher 索引不存在时返回null
+     */
+    public static IndexSearcher acquire(String indexName, long searcherVersion) {
+        if (searcherVersion > 0) {
+            SearcherLifetimeManager lifetime = LIFETIMES.get(indexName);
+            try {
+                IndexSearcher searcher = lifetime == null ? null : lifetime.acquire(searcherVersion);
+                if (searcher != null) {
+                    return searcher;
+                }
+            } catch (AlreadyClosedException e) {
+                // 索引已被关闭, 分页检索器随之释放, 获取最新的检索器
+            }
+        }
+        return acquire(indexName);
+    }
+
+    /**
+     * 记录检索器以便翻页时继续使用, 返回其版本
+     *
+     * @param indexName 索引存储相对路径
+     * @param searcher 通过acquire获取的检索器
+     * @return long 检索器版本, 记录失败时返回0
+     */
+    public static long record(String indexName, IndexSearcher searcher) {
+        SearcherLifetimeManager lifetime = LIFETIMES.get(indexName);
+        if (lifetime == null) {
+            return 0;
+        }
+        try {
+            return lifetime.record(searcher);
+        } catch (IOException | RuntimeException e) {
+            // 管理器已关闭等情况下不影响本次检索, 只是下一页使用最新的检索器
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * 获得索引当前检索器的版本, 索引有新数据可检索时版本会变化
+     *
+     * @param indexName 索引存储相对路径
+     * @return long 索引不存在时返回-1
+     */
+    public static long getVersion(String indexName) {
+        IndexSearcher searcher = acquire(indexName);
+        if (searcher == null) {
+            return -1;
+        }
+        try {
+            return getVersion(searcher);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    /**
+     * 获得检索器的版本
+     *
+     * @param searcher 通过acquire获取的检索器
+     * @return long 不是基于DirectoryReader的检索器返回-1
+     */
+    public static long getVersion(IndexSearcher searcher) {
+        IndexReader indexReader = searcher.getIndexReader();
+        return indexReader instanceof DirectoryReader ? ((DirectoryReader) indexReader).getVersion() : -1;
+    }
+
+    /**
+     * 添加监听器, 某个索引的检索器刷新出新数据或被关闭时调用
+     *
+     * @param listener 参数为索引名称
+     * @return void
+     */
+    public static void addListener(Consumer<String> listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * 释放检索器, 检索器管理器已经关闭时也可以正常释放
+     *
+     * @param searcher 通过acquire获取的检索器
+     * @return void
+     */
+    public static void release(IndexSearcher searcher) {
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searcher.getIndexReader().decRef();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 立即刷新某个索引的检索器, 如写入后需要马上检索到时调用
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public static void refresh(String indexName) {
+        SearcherManager manager = MANAGERS.get(indexName);
+        if (manager != null) {
+            try {
+                manager.maybeRefreshBlocking();
+            } catch (IOException e) {
+                e.printStackTrace();
+            } catch (AlreadyClosedException e) {
+                // 刷新期间索引被关闭, 不需要再刷新
+            }
+        }
+    }
+
+    /**
+     * 关闭某个索引的检索器管理器, 正在使用的检索器在释放后才会真正关闭
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public static void close(String indexName) {
+        synchronized (MANAGERS) {
+            SearcherManager manager = MANAGERS.remove(indexName);
+            SearcherLifetimeManager lifetime = LIFETIMES.remove(indexName);
+            try {
+                if (lifetime != null) {
+                    lifetime.close();
+                }
+                if (manager != null) {
+                    manager.close();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        notifyListeners(indexName);
+    }
+
+    private static void notifyListeners(String indexName) {
+        for (Consumer<String> listener : LISTENERS) {
+            try {
+                listener.accept(indexName);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 刷新所有检索器, 没有新数据时不会重新打开. 同时释放过期的分页检索器.
+     *
+     * @return void
+     */
+    private static void refreshAll() {
+        for (SearcherManager manager : MANAGERS.values()) {
+            try {
+                manager.maybeRefresh();
+            } catch (IOException | RuntimeException e) {
+                // 不能抛出异常, 否则定时刷新任务会被取消
+                e.printStackTrace();
+            }
+        }
+        for (SearcherLifetimeManager lifetime : LIFETIMES.values()) {
+            try {
+                lifetime.prune(new SearcherLifetimeManager.PruneByAge(cursorMaxAge));
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static SearcherManager open(String indexName) {
+        // 检索不存在的索引时不创建索引文件夹
+        if (!IndexManager.exists(indexName)) {
+            return null;
+        }
+        // 只读打开写入流, 不确定索引的分词器
+        IndexWriter indexWriter = IndexWriterRegistry.get(indexName);
+        if (indexWriter == null) {
+            return null;
+        }
+        try {
+            return new SearcherManager(indexWriter, new SlicedSearcherFactory(searchExecutor, luceneProperties.getIndex(indexName)));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
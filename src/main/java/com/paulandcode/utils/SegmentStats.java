@@ -0,0 +1,161 @@
+package com.paulandcode.utils;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentReader;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Description: 索引的段统计. 段数越多检索时需要遍历的段越多, 已删除的数据在合并前仍占用空间并参与遍历,
+ *  段数过多或删除比例过高时可以通过forceMerge合并.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 01:50
+ */
+public class SegmentStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 段数
+     */
+    private int count;
+
+    /**
+     * 所有段的文件总大小, 单位: 字节
+     */
+    private long sizeInBytes;
+
+    /**
+     * 包含已删除数据的数据条数
+     */
+    private int maxDoc;
+
+    /**
+     * 已删除但还未合并掉的数据条数
+     */
+    private int deletedDocs;
+
+    /**
+     * 删除比例: deletedDocs / maxDoc
+     */
+    private double deletionRatio;
+
+    /**
+     * 各个段, 按检索器中的顺序
+     */
+    private List<Segment> segments = new ArrayList<>();
+
+    /**
+     * 统计检索器中的所有段
+     *
+     * @param reader 索引读出流
+     * @return com.paulandcode.utils.SegmentStats
+     */
+    public static SegmentStats of(IndexReader reader) throws IOException {
+        SegmentStats stats = new SegmentStats();
+        for (LeafReaderContext leaf : reader.leaves()) {
+            LeafReader leafReader = leaf.reader();
+            Segment segment = new Segment();
+            segment.maxDoc = leafReader.maxDoc();
+            segment.deletedDocs = leafReader.numDeletedDocs();
+            segment.deletionRatio = ratio(segment.deletedDocs, segment.maxDoc);
+            if (leafReader instanceof SegmentReader) {
+                SegmentReader segmentReader = (SegmentReader) leafReader;
+                segment.name = segmentReader.getSegmentName();
+                segment.sizeInBytes = segmentReader.getSegmentInfo().sizeInBytes();
+            }
+            stats.segments.add(segment);
+            stats.sizeInBytes += segment.sizeInBytes;
+            stats.maxDoc += segment.maxDoc;
+            stats.deletedDocs += segment.deletedDocs;
+        }
+        stats.count = stats.segments.size();
+        stats.deletionRatio = ratio(stats.deletedDocs, stats.maxDoc);
+        return stats;
+    }
+
+    private static double ratio(int deletedDocs, int maxDoc) {
+        return maxDoc == 0 ? 0 : (double) deletedDocs / maxDoc;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public int getMaxDoc() {
+        return maxDoc;
+    }
+
+    public int getDeletedDocs() {
+        return deletedDocs;
+    }
+
+    public double getDeletionRatio() {
+        return deletionRatio;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * 单个段的统计
+     */
+    public static class Segment implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 段名称, 如: _0
+         */
+        private String name;
+
+        /**
+         * 段的文件大小, 单位: 字节
+         */
+        private long sizeInBytes;
+
+        /**
+         * 包含已删除数据的数据条数
+         */
+        private int maxDoc;
+
+        /**
+         * 已删除的数据条数
+         */
+        private int deletedDocs;
+
+        /**
+         * 删除比例
+         */
+        private double deletionRatio;
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSizeInBytes() {
+            return sizeInBytes;
+        }
+
+        public int getMaxDoc() {
+            return maxDoc;
+        }
+
+        public int getDeletedDocs() {
+            return deletedDocs;
+        }
+
+        public double getDeletionRatio() {
+            return deletionRatio;
+        }
+    }
+}
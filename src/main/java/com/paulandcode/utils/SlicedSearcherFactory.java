@@ -0,0 +1,78 @@
+package com.paulandcode.utils;
+
+import com.paulandcode.config.LuceneProperties;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * @Description: 创建检索器, 数据条数达到parallelMinDocs的索引创建带线程池的检索器, 各分片(slice)在共享的线程池中并行检索.
+ *  每个分片由相邻的段组成, 数据条数不超过sliceMaxDocs, 段数不超过sliceMaxSegments.
+ *  每次刷新都会重新判断, 索引变大后自动开启并行检索. 数据较少的索引仍在请求线程中检索, 不增加线程切换的开销.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 23:50
+ */
+public class SlicedSearcherFactory extends SearcherFactory {
+    /**
+     * 共享的检索线程池, 为null时不并行检索
+     */
+    private final ExecutorService executor;
+
+    private final LuceneProperties.IndexProperties indexProperties;
+
+    public SlicedSearcherFactory(ExecutorService executor, LuceneProperties.IndexProperties indexProperties) {
+        this.executor = executor;
+        this.indexProperties = indexProperties;
+    }
+
+    @Override
+    public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+        if (executor == null || !indexProperties.isParallelSearch() || reader.maxDoc() < indexProperties.getParallelMinDocs()
+                || reader.leaves().size() < 2) {
+            return new IndexSearcher(reader);
+        }
+        int sliceMaxDocs = indexProperties.getSliceMaxDocs();
+        int sliceMaxSegments = indexProperties.getSliceMaxSegments();
+        // slices在父类构造函数中调用, 只能使用局部变量, 不能使用子类的成员变量
+        return new IndexSearcher(reader, executor) {
+            @Override
+            protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+                return group(leaves, sliceMaxDocs, sliceMaxSegments);
+            }
+        };
+    }
+
+    /**
+     * 按段的顺序把相邻的段分为一组, 合并结果时得分相同的数据仍按docID排序
+     *
+     * @param leaves 所有段
+     * @param sliceMaxDocs 每个分片最多的数据条数, 单个段超过时单独为一个分片
+     * @param sliceMaxSegments 每个分片最多的段数
+     * @return org.apache.lucene.search.IndexSearcher.LeafSlice[]
+     */
+    private static IndexSearcher.LeafSlice[] group(List<LeafReaderContext> leaves, int sliceMaxDocs, int sliceMaxSegments) {
+        List<IndexSearcher.LeafSlice> slices = new ArrayList<>();
+        List<LeafReaderContext> group = new ArrayList<>();
+        long docs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            int maxDoc = leaf.reader().maxDoc();
+            if (!group.isEmpty() && (docs + maxDoc > sliceMaxDocs || group.size() >= sliceMaxSegments)) {
+                slices.add(new IndexSearcher.LeafSlice(group.toArray(new LeafReaderContext[0])));
+                group.clear();
+                docs = 0;
+            }
+            group.add(leaf);
+            docs += maxDoc;
+        }
+        if (!group.isEmpty()) {
+            slices.add(new IndexSearcher.LeafSlice(group.toArray(new LeafReaderContext[0])));
+        }
+        return slices.toArray(new IndexSearcher.LeafSlice[0]);
+    }
+}
@@ -0,0 +1,97 @@
+package com.paulandcode.utils;
+
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Description: 把排序条件转换为Lucene的排序. 按域排序时读取列存储(DocValues), 域定义中必须开启docValues,
+ *  LONG及DATE按整数排序, DOUBLE按小数排序, KEYWORD按字符串排序. 没有值的数据始终排在最后.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 22:40
+ */
+public class SortUtils {
+    /**
+     * 按相关度排序时使用的域名称
+     */
+    public static final String SCORE = "_score";
+
+    /**
+     * 把检索请求中的排序条件转换为排序
+     *
+     * @param orders 排序条件
+     * @param schema 索引的域定义, 可以为null
+     * @return org.apache.lucene.search.Sort 没有排序条件时返回null, 此时按相关度排序
+     */
+    public static Sort toSort(List<SearchRequest.SortOrder> orders, IndexSchema schema) {
+        if (orders == null || orders.isEmpty()) {
+            return null;
+        }
+        SortField[] sortFields = new SortField[orders.size()];
+        for (int i = 0; i < sortFields.length; i++) {
+            SearchRequest.SortOrder order = orders.get(i);
+            sortFields[i] = toSortField(order.getField(), order.isReverse(), schema);
+        }
+        return new Sort(sortFields);
+    }
+
+    /**
+     * 解析配置中的排序, 如: publishTime:desc,price
+     *
+     * @param spec 排序配置, 多个域以逗号分隔, 域名称后加:desc为倒序
+     * @param schema 索引的域定义, 可以为null
+     * @return org.apache.lucene.search.Sort 配置为空时返回null
+     */
+    public static Sort parse(String spec, IndexSchema schema) {
+        if (StringUtils.isEmpty(spec)) {
+            return null;
+        }
+        List<SortField> sortFields = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] fieldAndOrder = part.trim().split(":");
+            boolean reverse = fieldAndOrder.length > 1 && "desc".equalsIgnoreCase(fieldAndOrder[1].trim());
+            sortFields.add(toSortField(fieldAndOrder[0].trim(), reverse, schema));
+        }
+        return new Sort(sortFields.toArray(new SortField[0]));
+    }
+
+    private static SortField toSortField(String field, boolean reverse, IndexSchema schema) {
+        if (StringUtils.isEmpty(field)) {
+            throw new RuntimeException("排序域不能为空! ");
+        }
+        // 相关度默认从高到低
+        if (SCORE.equals(field)) {
+            return new SortField(null, SortField.Type.SCORE, reverse);
+        }
+        if (ClickWeights.WEIGHT_FIELD.equals(field)) {
+            return new SortField(field, SortField.Type.LONG, reverse);
+        }
+        IndexSchema.FieldDef fieldDef = schema == null ? null : schema.getField(field);
+        if (fieldDef == null || !fieldDef.isDocValues()) {
+            throw new RuntimeException("域" + field + "没有写入列存储, 不能排序! ");
+        }
+        SortField sortField;
+        switch (fieldDef.getType()) {
+            case LONG:
+            case DATE:
+                sortField = new SortField(field, SortField.Type.LONG, reverse);
+                sortField.setMissingValue(reverse ? Long.MIN_VALUE : Long.MAX_VALUE);
+                break;
+            case DOUBLE:
+                sortField = new SortField(field, SortField.Type.DOUBLE, reverse);
+                sortField.setMissingValue(reverse ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
+                break;
+            case KEYWORD:
+                sortField = new SortField(field, SortField.Type.STRING, reverse);
+                sortField.setMissingValue(reverse ? SortField.STRING_FIRST : SortField.STRING_LAST);
+                break;
+            default:
+                throw new RuntimeException("域" + field + "不能排序! ");
+        }
+        return sortField;
+    }
+}
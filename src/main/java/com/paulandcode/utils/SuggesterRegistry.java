@@ -0,0 +1,381 @@
+package com.paulandcode.utils;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.suggest.DocumentDictionary;
+import org.apache.lucene.search.suggest.Lookup;
+import org.apache.lucene.search.suggest.analyzing.AnalyzingInfixSuggester;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @Description: 自动补全注册表, 每个索引的每个补全域(及权重域, 上下文域)保持一个内存中的AnalyzingInfixSuggester.
+ *  补全器第一次使用时从索引中构建, 之后索引有新数据时(检索器版本变化)在后台重新构建,
+ *  两次构建至少间隔rebuildInterval秒, 构建完成前继续使用旧的补全器, 构建完成后替换.
+ *  第一次构建在请求线程中进行, 同一补全器的其他请求等待其完成, 不影响其他补全器的请求.
+ *  最多保留maxEntries个补全器, 超过时关闭最久未使用的.
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 20:30
+ */
+@Component
+public class SuggesterRegistry {
+    /**
+     * 被替换的补全器延迟关闭的时间, 等待正在进行的补全结束, 单位: 秒.
+     */
+    private static final long CLOSE_DELAY = 10;
+
+    /**
+     * 两次重新构建的最小间隔, 单位: 秒.
+     */
+    private static long rebuildInterval;
+
+    /**
+     * 最多保留的补全器个数
+     */
+    private static int maxEntries;
+
+    /**
+     * 补全器的key与补全器的对应关系
+     */
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    /**
+     * 正在第一次构建的补全器的key与构建结果的对应关系
+     */
+    private static final Map<String, CompletableFuture<Entry>> BUILDING = new ConcurrentHashMap<>();
+
+    /**
+     * 后台构建及延迟关闭补全器的线程
+     */
+    private static ScheduledExecutorService executor;
+
+    @Value("${spring.lucene.suggest-rebuild-interval}")
+    public void setRebuildInterval(long rebuildInterval) {
+        SuggesterRegistry.rebuildInterval = rebuildInterval;
+    }
+
+    @Value("${spring.lucene.suggest-max-entries}")
+    public void setMaxEntries(int maxEntries) {
+        SuggesterRegistry.maxEntries = maxEntries;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lucene-suggest");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Spring容器关闭时关闭所有补全器
+     *
+     * @return void
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        for (String key : ENTRIES.keySet()) {
+            close(ENTRIES.remove(key));
+        }
+    }
+
+    /**
+     * 自动补全, 关键字的最后一个词作为前缀匹配, 其他词完整匹配
+     *
+     * @param indexName 索引存储相对路径
+     * @param analyzerName 分词器名称
+     * @param fieldName 补全域, 必须是存储的域
+     * @param weightFieldName 权重域, 存储的数字域或数字DocValues域, 为空时权重都为0
+     * @param contextFieldName 上下文域, 存储的域, 为空时不支持按上下文过滤
+     * @param keyword 关键字
+     * @param contexts 上下文, 只返回上下文域的值在其中的结果, 为空时不过滤
+     * @param num 返回的条数
+     * @param allTermsRequired 是否要求包含所有的词
+     * @param preTag 高亮前缀
+     * @param postTag 高亮后缀
+     * @return java.util.List<java.lang.String>
+     */
+    public static List<String> lookup(String indexName, String analyzerName, String fieldName, String weightFieldName,
+                                      String contextFieldName, String keyword, Set<String> contexts, int num,
+                                      boolean allTermsRequired, String preTag, String postTag) {
+        String key = indexName + "\n" + analyzerName + "\n" + fieldName + "\n" + weightFieldName + "\n" + contextFieldName;
+        long version = SearcherRegistry.getVersion(indexName);
+        if (version < 0) {
+            // 索引已被删除
+            close(ENTRIES.remove(key));
+            return Collections.emptyList();
+        }
+        Entry entry = ENTRIES.get(key);
+        if (entry == null) {
+            entry = buildFirst(key, indexName, analyzerName, fieldName, weightFieldName, contextFieldName);
+            if (entry == null) {
+                return Collections.emptyList();
+            }
+        } else if (entry.version != version) {
+            rebuild(key, entry, indexName, analyzerName, fieldName, weightFieldName, contextFieldName);
+        }
+        Set<BytesRef> contextRefs = null;
+        if (contexts != null && !contexts.isEmpty()) {
+            contextRefs = new HashSet<>();
+            for (String context : contexts) {
+                contextRefs.add(new BytesRef(context));
+            }
+        }
+        entry.lastAccessTime = System.currentTimeMillis();
+        List<Lookup.LookupResult> results;
+        try {
+            // 多取一些, 去掉重复的内容后仍有num条
+            results = entry.suggester.lookup(keyword, contextRefs, num * 2, allTermsRequired, true);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+        Set<String> keys = new HashSet<>();
+        Set<String> suggestions = new LinkedHashSet<>();
+        for (Lookup.LookupResult result : results) {
+            if (suggestions.size() >= num) {
+                break;
+            }
+            if (keys.add(result.key.toString())) {
+                suggestions.add(result.highlightKey == null ? result.key.toString()
+                        : Suggester.applyTags(result.highlightKey.toString(), preTag, postTag));
+            }
+        }
+        return new ArrayList<>(suggestions);
+    }
+
+    /**
+     * 关闭某个索引的所有补全器, 如关闭或删除索引时
+     *
+     * @param indexName 索引存储相对路径
+     * @return void
+     */
+    public static void evict(String indexName) {
+        String prefix = indexName + "\n";
+        for (String key : ENTRIES.keySet()) {
+            if (key.startsWith(prefix)) {
+                close(ENTRIES.remove(key));
+            }
+        }
+    }
+
+    /**
+     * 第一次构建补全器, 同一key同时只有一个线程构建, 其他线程等待并使用其结果
+     *
+     * @return com.paulandcode.utils.SuggesterRegistry.Entry 构建失败时返回null
+     */
+    private static Entry buildFirst(String key, String indexName, String analyzerName, String fieldName,
+                                    String weightFieldName, String contextFieldName) {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> building = BUILDING.putIfAbsent(key, future);
+        if (building != null) {
+            return building.join();
+        }
+        Entry entry = null;
+        try {
+            // 等待前一个构建线程结束后才进入这里时, 补全器可能已经构建好了
+            entry = ENTRIES.get(key);
+            if (entry == null) {
+                entry = build(indexName, analyzerName, fieldName, weightFieldName, contextFieldName);
+                if (entry != null) {
+                    put(key, entry);
+                }
+            }
+            return entry;
+        } finally {
+            BUILDING.remove(key, future);
+            future.complete(entry);
+        }
+    }
+
+    /**
+     * 放入补全器, 超过maxEntries个时关闭最久未使用的
+     */
+    private static void put(String key, Entry entry) {
+        ENTRIES.put(key, entry);
+        while (ENTRIES.size() > Math.max(1, maxEntries)) {
+            Map.Entry<String, Entry> eldest = null;
+            for (Map.Entry<String, Entry> candidate : ENTRIES.entrySet()) {
+                if (eldest == null || candidate.getValue().lastAccessTime < eldest.getValue().lastAccessTime) {
+                    eldest = candidate;
+                }
+            }
+            if (eldest == null) {
+                break;
+            }
+            if (ENTRIES.remove(eldest.getKey(), eldest.getValue())) {
+                System.out.println("自动补全器数量超过" + maxEntries + "个, 关闭最久未使用的" + eldest.getKey().replace('\n', ' '));
+                Entry evicted = eldest.getValue();
+                // 可能还有正在进行的补全
+                executor.schedule(() -> close(evicted), CLOSE_DELAY, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * 在后台重新构建, 距上次构建不足rebuildInterval秒或正在构建时不处理
+     */
+    private static void rebuild(String key, Entry entry, String indexName, String analyzerName, String fieldName,
+                                String weightFieldName, String contextFieldName) {
+        if (System.currentTimeMillis() - entry.buildTime < rebuildInterval * 1000
+                || !entry.rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            Entry fresh = build(indexName, analyzerName, fieldName, weightFieldName, contextFieldName);
+            if (fresh == null) {
+                entry.rebuilding.set(false);
+            } else if (ENTRIES.replace(key, entry, fresh)) {
+                fresh.lastAccessTime = entry.lastAccessTime;
+                executor.schedule(() -> close(entry), CLOSE_DELAY, TimeUnit.SECONDS);
+            } else {
+                close(fresh);
+            }
+        });
+    }
+
+    private static Entry build(String indexName, String analyzerName, String fieldName, String weightFieldName,
+                               String contextFieldName) {
+        IndexSearcher searcher = SearcherRegistry.acquire(indexName);
+        if (searcher == null) {
+            return null;
+        }
+        Suggester suggester = null;
+        try {
+            long start = System.currentTimeMillis();
+            suggester = new Suggester(AnalyzerRegistry.get(analyzerName));
+            suggester.build(new DocumentDictionary(searcher.getIndexReader(), fieldName, weightFieldName, null, contextFieldName));
+            long version = SearcherRegistry.getVersion(searcher);
+            System.out.println("索引" + indexName + "的" + fieldName + "域自动补全构建完成, 共" + suggester.getCount()
+                    + "条, 耗时" + (System.currentTimeMillis() - start) + "毫秒. ");
+            return new Entry(suggester, version);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            if (suggester != null) {
+                try {
+                    suggester.close();
+                } catch (IOException e1) {
+                    e1.printStackTrace();
+                }
+            }
+            return null;
+        } finally {
+            SearcherRegistry.release(searcher);
+        }
+    }
+
+    private static void close(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        try {
+            entry.suggester.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 补全器及其构建时的检索器版本
+     */
+    private static class Entry {
+        private final Suggester suggester;
+
+        private final long version;
+
+        private final long buildTime = System.currentTimeMillis();
+
+        private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+        /**
+         * 最后一次使用的时间, 用于关闭最久未使用的补全器
+         */
+        private volatile long lastAccessTime = System.currentTimeMillis();
+
+        private Entry(Suggester suggester, long version) {
+            this.suggester = suggester;
+            this.version = version;
+        }
+    }
+
+    /**
+     * 保存在内存中的AnalyzingInfixSuggester. 补全时先用内部标记高亮, 再替换为本次请求的高亮前后缀
+     */
+    private static class Suggester extends AnalyzingInfixSuggester {
+        /**
+         * 高亮前缀的内部标记, Unicode私有区字符, 不会出现在正常文本中
+         */
+        private static final char PRE_MARK = '\uE000';
+
+        /**
+         * 高亮后缀的内部标记
+         */
+        private static final char POST_MARK = '\uE001';
+
+        private Suggester(Analyzer analyzer) throws IOException {
+            super(new RAMDirectory(), analyzer, analyzer, DEFAULT_MIN_PREFIX_CHARS, false, true, true);
+        }
+
+        /**
+         * 将内部标记替换为高亮前后缀
+         *
+         * @param highlighted 使用内部标记高亮的内容
+         * @param preTag 高亮前缀
+         * @param postTag 高亮后缀
+         * @return java.lang.String
+         */
+        private static String applyTags(String highlighted, String preTag, String postTag) {
+            StringBuilder sb = new StringBuilder(highlighted.length() + 4 * (preTag.length() + postTag.length()));
+            for (int i = 0; i < highlighted.length(); i++) {
+                char c = highlighted.charAt(i);
+                if (c == PRE_MARK) {
+                    sb.append(preTag);
+                } else if (c == POST_MARK) {
+                    sb.append(postTag);
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+
+        @Override
+        protected void addPrefixMatch(StringBuilder sb, String surface, String analyzed, String prefixToken) {
+            if (prefixToken.length() >= surface.length()) {
+                addWholeMatch(sb, surface, analyzed);
+                return;
+            }
+            sb.append(PRE_MARK).append(surface, 0, prefixToken.length()).append(POST_MARK);
+            sb.append(surface, prefixToken.length(), surface.length());
+        }
+
+        @Override
+        protected void addWholeMatch(StringBuilder sb, String surface, String analyzed) {
+            sb.append(PRE_MARK).append(surface).append(POST_MARK);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package test;
+
+import com.paulandcode.Application;
+import com.paulandcode.utils.AnalyzerRegistry;
+import com.paulandcode.utils.IndexAliases;
+import com.paulandcode.utils.IndexWriterRegistry;
+import com.paulandcode.utils.LuceneUtils;
+import com.paulandcode.utils.SearchRequest;
+import com.paulandcode.utils.SearchResult;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @Description: 翻页期间切换别名的测试, 已开始的分页应在旧版本上继续, 新的检索使用新版本
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 04:40
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class,
+        properties = {"spring.lucene.root-path=target/alias-paging-test/", "spring.lucene.warmup=false"})
+public class AliasPagingTest {
+    private static final String ALIAS = "aliasPaging";
+
+    @After
+    public void tearDown() {
+        IndexAliases.delete(ALIAS);
+    }
+
+    @Test
+    public void switchWhilePaging() throws IOException, InterruptedException {
+        String v1 = IndexAliases.createVersion(ALIAS);
+        write(v1, "v1-", 10);
+        IndexAliases.switchTo(ALIAS, v1);
+
+        SearchResult page = LuceneUtils.search(request(null));
+        Set<String> ids = collect(page, "v1-", 4);
+
+        // 版本号精确到秒
+        Thread.sleep(1100);
+        String v2 = IndexAliases.createVersion(ALIAS);
+        write(v2, "v2-", 10);
+        assertEquals(v1, IndexAliases.switchTo(ALIAS, v2));
+
+        // 切换后旧版本仍然打开, 已开始的分页继续读取旧版本
+        page = LuceneUtils.search(request(page.getCursor()));
+        ids.addAll(collect(page, "v1-", 4));
+        page = LuceneUtils.search(request(page.getCursor()));
+        ids.addAll(collect(page, "v1-", 2));
+        assertEquals(10, ids.size());
+
+        // 新的检索使用新版本
+        collect(LuceneUtils.search(request(null)), "v2-", 4);
+    }
+
+    private static void write(String indexName, String prefix, int count) throws IOException {
+        IndexWriter indexWriter = IndexWriterRegistry.get(indexName, AnalyzerRegistry.SIMPLE);
+        for (int i = 0; i < count; i++) {
+            Document doc = new Document();
+            doc.add(new StringField("id", prefix + i, Field.Store.YES));
+            doc.add(new TextField("title", "lucene alias paging", Field.Store.YES));
+            indexWriter.addDocument(doc);
+        }
+    }
+
+    private static SearchRequest request(String cursor) {
+        SearchRequest request = new SearchRequest();
+        request.setIndexName(ALIAS);
+        request.setAnalyzer(AnalyzerRegistry.SIMPLE);
+        request.setKeyword("lucene");
+        request.getFields().put("title", 1f);
+        request.setResultFieldNames(Collections.singletonList("id"));
+        request.setNum(4);
+        request.setCursor(cursor);
+        return request;
+    }
+
+    private static Set<String> collect(SearchResult page, String prefix, int size) {
+        assertEquals(size, page.getData().size());
+        Set<String> ids = new HashSet<>();
+        for (String[] row : page.getData()) {
+            assertTrue(row[0], row[0].startsWith(prefix));
+            ids.add(row[0]);
+        }
+        return ids;
+    }
+}
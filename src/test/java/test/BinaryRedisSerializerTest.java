@@ -0,0 +1,115 @@
+package test;
+
+import com.paulandcode.config.BinaryRedisSerializer;
+import com.paulandcode.config.FastJsonRedisSerializer;
+import com.paulandcode.utils.SearchResult;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @Description: 缓存value二进制序列化的测试
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 03:20
+ */
+public class BinaryRedisSerializerTest {
+    private final BinaryRedisSerializer serializer = new BinaryRedisSerializer(1024);
+
+    @Test
+    public void roundTripScalars() {
+        for (Object value : Arrays.asList("检索", "", 1, 2L, 3.5D, 4.5f, true, false)) {
+            assertEquals(value, roundTrip(value));
+        }
+        assertNull(serializer.deserialize(serializer.serialize(null)));
+        assertNull(serializer.deserialize(null));
+    }
+
+    @Test
+    public void roundTripCollections() {
+        String[] array = {"a", null, "c"};
+        assertArrayEquals(array, (String[]) roundTrip(array));
+        List<Object> list = Arrays.asList("a", 1L, null, Arrays.asList("b", "c"));
+        assertEquals(list, roundTrip(list));
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("title", "标题");
+        map.put("count", 10L);
+        assertEquals(map, roundTrip(map));
+    }
+
+    @Test
+    public void roundTripSearchResult() {
+        SearchResult searchResult = searchResult(3);
+        SearchResult copy = (SearchResult) roundTrip(searchResult);
+        assertEquals(searchResult.getCursor(), copy.getCursor());
+        assertEquals(searchResult.getData().size(), copy.getData().size());
+        for (int i = 0; i < searchResult.getData().size(); i++) {
+            assertArrayEquals(searchResult.getData().get(i), copy.getData().get(i));
+        }
+        assertNull(copy.getFacets());
+    }
+
+    @Test
+    public void roundTripSearchResultWithFacets() {
+        SearchResult searchResult = searchResult(1);
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("体育", 3L);
+        counts.put("财经", 1L);
+        facets.put("category", counts);
+        searchResult.setFacets(facets);
+        SearchResult copy = (SearchResult) roundTrip(searchResult);
+        assertEquals(facets, copy.getFacets());
+    }
+
+    @Test
+    public void roundTripCompressed() {
+        // 超过压缩阈值时压缩, 压缩后仍可读取
+        SearchResult searchResult = searchResult(200);
+        byte[] bytes = serializer.serialize(searchResult);
+        assertTrue(bytes.length < new BinaryRedisSerializer(0).serialize(searchResult).length);
+        SearchResult copy = (SearchResult) serializer.deserialize(bytes);
+        assertEquals(200, copy.getData().size());
+        assertArrayEquals(searchResult.getData().get(199), copy.getData().get(199));
+    }
+
+    @Test
+    public void readsLegacyJson() {
+        // 升级前由FastJsonRedisSerializer写入的缓存
+        FastJsonRedisSerializer<Object> fastJson = new FastJsonRedisSerializer<>(Object.class);
+        List<String> suggestions = new ArrayList<>(Arrays.asList("检索", "检索结果"));
+        assertEquals(suggestions, serializer.deserialize(fastJson.serialize(suggestions)));
+        assertEquals("检索", serializer.deserialize("\"检索\"".getBytes(Charset.forName("UTF-8"))));
+
+        SearchResult searchResult = searchResult(2);
+        Object legacy = serializer.deserialize(fastJson.serialize(searchResult));
+        assertTrue(legacy instanceof SearchResult);
+        assertEquals(searchResult.getCursor(), ((SearchResult) legacy).getCursor());
+        assertArrayEquals(searchResult.getData().get(1), ((SearchResult) legacy).getData().get(1));
+    }
+
+    private Object roundTrip(Object value) {
+        return serializer.deserialize(serializer.serialize(value));
+    }
+
+    private static SearchResult searchResult(int rows) {
+        SearchResult searchResult = new SearchResult();
+        List<String[]> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            data.add(new String[]{"编号" + i, "检索结果的<span style='color:red'>高亮</span>内容, 第" + i + "条", i % 2 == 0 ? null : ""});
+        }
+        searchResult.setData(data);
+        searchResult.setCursor("AQAAAAAAAAAB");
+        return searchResult;
+    }
+}
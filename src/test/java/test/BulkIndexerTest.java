@@ -0,0 +1,182 @@
+package test;
+
+import com.paulandcode.config.LuceneProperties;
+import com.paulandcode.utils.BulkIndexer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @Description: 批量写入的测试, 不启动Spring容器, 使用内存索引
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 03:00
+ */
+public class BulkIndexerTest {
+    private RAMDirectory directory;
+
+    private IndexWriter indexWriter;
+
+    private ExecutorService executor;
+
+    private LuceneProperties.IndexProperties properties;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = new RAMDirectory();
+        indexWriter = new IndexWriter(directory, new IndexWriterConfig(new KeywordAnalyzer()));
+        executor = Executors.newFixedThreadPool(2);
+        properties = new LuceneProperties.IndexProperties();
+        properties.setIndexThreads(4);
+        properties.setBatchSize(10);
+        properties.setQueueCapacity(20);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        indexWriter.close();
+        directory.close();
+    }
+
+    @Test
+    public void finishWritesAllRows() throws IOException {
+        // 写入线程数大于线程池的线程数时, 多出的写入任务排队执行
+        BulkIndexer<Integer> bulkIndexer = new BulkIndexer<>("test", indexWriter, BulkIndexerTest::toDoc, null, properties, executor);
+        for (int i = 0; i < 1000; i++) {
+            bulkIndexer.add(i);
+        }
+        BulkIndexer.Stats stats = bulkIndexer.finish();
+        assertEquals(1000, stats.getParsed());
+        assertEquals(1000, stats.getIndexed());
+        indexWriter.commit();
+        try (DirectoryReader reader = DirectoryReader.open(directory)) {
+            assertEquals(1000, reader.numDocs());
+        }
+    }
+
+    @Test
+    public void finishThrowsWorkerError() {
+        BulkIndexer<Integer> bulkIndexer = new BulkIndexer<>("test", indexWriter, i -> {
+            if (i == 500) {
+                throw new IllegalStateException("第500条数据无效");
+            }
+            return toDoc(i);
+        }, null, properties, executor);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                bulkIndexer.add(i);
+            }
+            bulkIndexer.finish();
+            fail("写入线程出错时finish应抛出异常");
+        } catch (IOException | RuntimeException e) {
+            Throwable cause = e.getCause();
+            assertTrue(cause instanceof IllegalStateException);
+            assertEquals("第500条数据无效", cause.getMessage());
+        }
+    }
+
+    @Test
+    public void executorIsNotShutDown() throws IOException {
+        new BulkIndexer<>("test", indexWriter, BulkIndexerTest::toDoc, null, properties, executor).finish();
+        // 共享线程池可以继续用于下一次批量写入
+        BulkIndexer<Integer> bulkIndexer = new BulkIndexer<>("test", indexWriter, BulkIndexerTest::toDoc, null, properties, executor);
+        bulkIndexer.add(1);
+        assertEquals(1, bulkIndexer.finish().getIndexed());
+    }
+
+    @Test(timeout = 10000)
+    public void cancelledWorkersFailFinish() throws InterruptedException {
+        // 线程池被占满, 写入任务都在排队
+        CountDownLatch blocked = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            executor.submit(() -> {
+                blocked.await();
+                return null;
+            });
+        }
+        BulkIndexer<Integer> bulkIndexer = new BulkIndexer<>("test", indexWriter, BulkIndexerTest::toDoc, null, properties, executor);
+        // 与IndexWriterRegistry关闭时相同, 排队中的任务被取消
+        for (Runnable task : executor.shutdownNow()) {
+            ((Future<?>) task).cancel(false);
+        }
+        try {
+            for (int i = 0; i < 1000; i++) {
+                bulkIndexer.add(i);
+            }
+            bulkIndexer.finish();
+            fail("写入任务被取消时应抛出异常");
+        } catch (IOException | RuntimeException e) {
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+    }
+
+    @Test
+    public void rejectedWorkersFailConstructor() {
+        executor.shutdown();
+        try {
+            new BulkIndexer<>("test", indexWriter, BulkIndexerTest::toDoc, null, properties, executor);
+            fail("线程池已关闭时应抛出异常");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void keyedUpdatesKeepLastRow() throws IOException {
+        // 每个主键交替出现多次, 最后放入的一条应生效
+        BulkIndexer<int[]> bulkIndexer = new BulkIndexer<>("test", indexWriter, row -> {
+            Document doc = new Document();
+            doc.add(new StringField("id", String.valueOf(row[0]), Field.Store.YES));
+            doc.add(new StoredField("version", row[1]));
+            return doc;
+        }, row -> new Term("id", String.valueOf(row[0])), properties, executor);
+        for (int version = 0; version < 20; version++) {
+            for (int id = 0; id < 100; id++) {
+                bulkIndexer.add(new int[]{id, version});
+            }
+        }
+        bulkIndexer.finish();
+        indexWriter.commit();
+        try (DirectoryReader reader = DirectoryReader.open(directory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            assertEquals(100, reader.numDocs());
+            for (int id = 0; id < 100; id++) {
+                TopDocs docs = searcher.search(new TermQuery(new Term("id", String.valueOf(id))), 10);
+                assertEquals(1, docs.totalHits);
+                assertEquals(19, searcher.doc(docs.scoreDocs[0].doc).getField("version").numericValue().intValue());
+            }
+        }
+    }
+
+    private static Document toDoc(Integer i) {
+        Document doc = new Document();
+        doc.add(new StringField("id", String.valueOf(i), Field.Store.YES));
+        return doc;
+    }
+}
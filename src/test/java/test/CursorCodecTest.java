@@ -0,0 +1,103 @@
+package test;
+
+import com.paulandcode.utils.CursorCodec;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.BytesRef;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Base64;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @Description: 分页游标编码与解码的测试
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 03:10
+ */
+public class CursorCodecTest {
+    private static final String CONTEXT = "news\ntitle\n检索";
+
+    @BeforeClass
+    public static void setUp() {
+        new CursorCodec().setSecret("cursor-codec-test");
+    }
+
+    @Test
+    public void roundTripScoreDoc() {
+        String token = CursorCodec.encode(new ScoreDoc(42, 1.5f, 3), 7L, CONTEXT);
+        CursorCodec.Cursor cursor = CursorCodec.decode(token, CONTEXT);
+        assertFalse(cursor.getAfter() instanceof FieldDoc);
+        assertEquals(42, cursor.getAfter().doc);
+        assertEquals(1.5f, cursor.getAfter().score, 0);
+        assertEquals(3, cursor.getAfter().shardIndex);
+        assertEquals(7L, cursor.getSearcherVersion());
+    }
+
+    @Test
+    public void roundTripFieldDoc() {
+        Object[] fields = {1L, 2.5D, 3.5f, 4, new BytesRef("标题"), null};
+        String token = CursorCodec.encode(new FieldDoc(9, Float.NaN, fields, 1), 11L, CONTEXT);
+        CursorCodec.Cursor cursor = CursorCodec.decode(token, CONTEXT);
+        assertTrue(cursor.getAfter() instanceof FieldDoc);
+        assertEquals(9, cursor.getAfter().doc);
+        assertEquals(1, cursor.getAfter().shardIndex);
+        assertEquals(11L, cursor.getSearcherVersion());
+        assertArrayEquals(fields, ((FieldDoc) cursor.getAfter()).fields);
+    }
+
+    @Test
+    public void roundTripIndexName() {
+        Object[] fields = {1L};
+        String token = CursorCodec.encode(new FieldDoc(5, Float.NaN, fields, 0), "news@20261019010000", 13L, CONTEXT);
+        CursorCodec.Cursor cursor = CursorCodec.decode(token, CONTEXT);
+        assertEquals("news@20261019010000", cursor.getIndexName());
+        assertEquals(13L, cursor.getSearcherVersion());
+        assertArrayEquals(fields, ((FieldDoc) cursor.getAfter()).fields);
+        assertNull(CursorCodec.decode(CursorCodec.encode(new ScoreDoc(1, 1f), 1L, CONTEXT), CONTEXT).getIndexName());
+    }
+
+    @Test
+    public void rejectsOtherContext() {
+        String token = CursorCodec.encode(new ScoreDoc(1, 1f), 1L, CONTEXT);
+        assertInvalid(token, "news\ntitle\n其他");
+    }
+
+    @Test
+    public void rejectsTamperedPayload() {
+        byte[] bytes = Base64.getUrlDecoder().decode(CursorCodec.encode(new ScoreDoc(1, 1f), 1L, CONTEXT));
+        // 修改检索器版本中的一个字节
+        bytes[8] ^= 1;
+        assertInvalid(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), CONTEXT);
+    }
+
+    @Test
+    public void rejectsTamperedSignature() {
+        byte[] bytes = Base64.getUrlDecoder().decode(CursorCodec.encode(new ScoreDoc(1, 1f), 1L, CONTEXT));
+        bytes[bytes.length - 1] ^= 1;
+        assertInvalid(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), CONTEXT);
+    }
+
+    @Test
+    public void rejectsMalformedToken() {
+        assertInvalid("not a cursor!", CONTEXT);
+        assertInvalid("", CONTEXT);
+        assertInvalid("AQID", CONTEXT);
+    }
+
+    private static void assertInvalid(String token, String context) {
+        try {
+            CursorCodec.decode(token, context);
+            fail("无效的游标应被拒绝: " + token);
+        } catch (RuntimeException e) {
+            assertEquals("分页游标无效! ", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package test;
+
+import com.paulandcode.utils.FacetCollector;
+import com.paulandcode.utils.FieldBuilder;
+import com.paulandcode.utils.IndexSchema;
+import com.paulandcode.utils.SearchRequest;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @Description: 统计收集器的测试, 使用内存索引, 每4条数据一个段
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 04:20
+ */
+public class FacetCollectorTest {
+    private IndexSchema schema;
+
+    private RAMDirectory directory;
+
+    private DirectoryReader reader;
+
+    private IndexSearcher searcher;
+
+    /**
+     * 第i条数据: category按i % 3为体育, 财经, 科技; count为i * 5; price为i + 0.5. 最后一条数据没有这些域
+     */
+    @Before
+    public void setUp() throws IOException {
+        schema = new IndexSchema();
+        schema.getFields().put("category", fieldDef(IndexSchema.Type.KEYWORD));
+        schema.getFields().put("count", fieldDef(IndexSchema.Type.LONG));
+        schema.getFields().put("price", fieldDef(IndexSchema.Type.DOUBLE));
+        FieldBuilder fieldBuilder = new FieldBuilder(schema, false);
+        directory = new RAMDirectory();
+        String[] categories = {"体育", "财经", "科技"};
+        try (IndexWriter indexWriter = new IndexWriter(directory,
+                new IndexWriterConfig(new KeywordAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE))) {
+            for (int i = 0; i < 10; i++) {
+                Document doc = new Document();
+                fieldBuilder.add(doc, "category", categories[i % 3], false);
+                fieldBuilder.add(doc, "count", String.valueOf(i * 5), false);
+                fieldBuilder.add(doc, "price", String.valueOf(i + 0.5), false);
+                indexWriter.addDocument(doc);
+                if (i % 4 == 3) {
+                    indexWriter.commit();
+                }
+            }
+            Document doc = new Document();
+            doc.add(new StringField("id", "empty", Field.Store.YES));
+            indexWriter.addDocument(doc);
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new IndexSearcher(reader);
+        assertTrue(reader.leaves().size() > 1);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Test
+    public void termCounts() throws IOException {
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("体育", 4L);
+        // 条数相同时按值排序
+        expected.put("科技", 3L);
+        expected.put("财经", 3L);
+        assertEquals(expected, search(facet("category", 0, null)).get("category"));
+        expected.remove("财经");
+        assertEquals(expected, search(facet("category", 2, null)).get("category"));
+    }
+
+    @Test
+    public void longRangeCounts() throws IOException {
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("* TO 10", 2L);
+        expected.put("中间", 4L);
+        expected.put("30 TO *", 4L);
+        assertEquals(expected, search(facet("count", 0, Arrays.asList(
+                range(null, null, "10"), range("中间", "10", "30"), range(null, "30", null)))).get("count"));
+    }
+
+    @Test
+    public void doubleRangeCounts() throws IOException {
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("2.5 TO 5.5", 3L);
+        expected.put("8 TO *", 2L);
+        assertEquals(expected, search(facet("price", 0, Arrays.asList(
+                range(null, "2.5", "5.5"), range(null, "8", "")))).get("price"));
+    }
+
+    @Test
+    public void mergeCollectors() throws IOException {
+        // 模拟并行检索的两个分片
+        List<SearchRequest.Facet> facets = Arrays.asList(facet("category", 0, null),
+                facet("count", 0, Collections.singletonList(range(null, "20", null))));
+        FacetCollector sports = FacetCollector.create(facets, schema);
+        searcher.search(new TermQuery(new Term("category", "体育")), sports);
+        FacetCollector finance = FacetCollector.create(facets, schema);
+        searcher.search(new TermQuery(new Term("category", "财经")), finance);
+        Map<String, Map<String, Long>> result = FacetCollector.merge(new ArrayList<>(Arrays.asList(sports, finance)));
+        Map<String, Long> categories = new LinkedHashMap<>();
+        categories.put("体育", 4L);
+        categories.put("财经", 3L);
+        assertEquals(categories, result.get("category"));
+        // 体育: 30, 45; 财经: 20, 35
+        assertEquals(Collections.singletonMap("20 TO *", 4L), result.get("count"));
+    }
+
+    @Test
+    public void rejectsInvalidFacets() {
+        schema.getFields().put("title", new IndexSchema.FieldDef());
+        assertRejected(facet("title", 0, null), "域title没有写入列存储, 不能统计! ");
+        assertRejected(facet("missing", 0, null), "域missing没有写入列存储, 不能统计! ");
+        assertRejected(facet("count", 0, null), "数值域count统计时需要指定区间! ");
+    }
+
+    private Map<String, Map<String, Long>> search(SearchRequest.Facet facet) throws IOException {
+        FacetCollector collector = FacetCollector.create(Collections.singletonList(facet), schema);
+        searcher.search(new MatchAllDocsQuery(), collector);
+        return collector.getResult();
+    }
+
+    private void assertRejected(SearchRequest.Facet facet, String message) {
+        try {
+            FacetCollector.create(Collections.singletonList(facet), schema);
+            fail("应拒绝统计条件: " + facet.getField());
+        } catch (RuntimeException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static IndexSchema.FieldDef fieldDef(IndexSchema.Type type) {
+        IndexSchema.FieldDef fieldDef = new IndexSchema.FieldDef();
+        fieldDef.setType(type);
+        fieldDef.setDocValues(true);
+        return fieldDef;
+    }
+
+    private static SearchRequest.Facet facet(String field, int size, List<SearchRequest.Range> ranges) {
+        SearchRequest.Facet facet = new SearchRequest.Facet();
+        facet.setField(field);
+        facet.setSize(size);
+        facet.setRanges(ranges);
+        return facet;
+    }
+
+    private static SearchRequest.Range range(String label, String from, String to) {
+        SearchRequest.Range range = new SearchRequest.Range();
+        range.setLabel(label);
+        range.setFrom(from);
+        range.setTo(to);
+        return range;
+    }
+}
@@ -0,0 +1,140 @@
+package test;
+
+import com.paulandcode.config.LuceneProperties;
+import com.paulandcode.utils.BulkIndexer;
+import com.paulandcode.utils.IndexJob;
+import com.paulandcode.utils.IndexJobExecutor;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @Description: 异步索引任务的测试, 不启动Spring容器, 使用内存索引
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 05:00
+ */
+public class IndexJobExecutorTest {
+    private IndexJobExecutor jobExecutor;
+
+    private RAMDirectory directory;
+
+    private IndexWriter indexWriter;
+
+    private ExecutorService pool;
+
+    private LuceneProperties.IndexProperties properties;
+
+    @Before
+    public void setUp() throws IOException {
+        jobExecutor = new IndexJobExecutor();
+        ReflectionTestUtils.setField(jobExecutor, "jobThreads", 1);
+        ReflectionTestUtils.setField(jobExecutor, "jobMaxPending", 10);
+        ReflectionTestUtils.setField(jobExecutor, "jobRetention", 60L);
+        jobExecutor.start();
+        directory = new RAMDirectory();
+        indexWriter = new IndexWriter(directory, new IndexWriterConfig(new KeywordAnalyzer()));
+        pool = Executors.newFixedThreadPool(2);
+        properties = new LuceneProperties.IndexProperties();
+        properties.setIndexThreads(4);
+        properties.setBatchSize(10);
+        properties.setQueueCapacity(20);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        jobExecutor.shutdown();
+        pool.shutdownNow();
+        indexWriter.close();
+        directory.close();
+    }
+
+    @Test
+    public void failedJobKeepsProgress() throws IOException, InterruptedException {
+        IndexJob job = jobExecutor.submit("test", "addIndex", j -> {
+            BulkIndexer<Integer> bulkIndexer = new BulkIndexer<>("test", indexWriter, i -> {
+                if (i == 500) {
+                    throw new IllegalStateException("第500条数据无效");
+                }
+                return toDoc(i);
+            }, null, properties, pool);
+            j.monitor(bulkIndexer);
+            try {
+                for (int i = 0; i < 1000; i++) {
+                    bulkIndexer.add(i);
+                }
+                return bulkIndexer.finish();
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        });
+        awaitEnd(job);
+        assertEquals(IndexJob.Status.FAILED, job.getStatus());
+        assertFalse(job.getErrors().isEmpty());
+        // 出错前的数据已解析并写入, 每个写入线程最多丢弃未满一批的数据
+        assertTrue(job.getRowsParsed() >= 500);
+        assertTrue(job.getDocsIndexed() >= 500 - 4 * 10);
+        try (DirectoryReader reader = DirectoryReader.open(indexWriter)) {
+            assertEquals(job.getDocsIndexed(), reader.numDocs());
+        }
+    }
+
+    @Test
+    public void shutdownFailsQueuedJobs() throws InterruptedException {
+        IndexJob running = jobExecutor.submit("test", "addIndex", j -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new BulkIndexer.Stats(0, 0, 0);
+        });
+        // 同一索引的任务在前一个任务之后提交到线程池, 其他索引的任务在线程池中排队
+        IndexJob chained = jobExecutor.submit("test", "addIndex", j -> new BulkIndexer.Stats(0, 0, 0));
+        IndexJob queued = jobExecutor.submit("other", "addIndex", j -> new BulkIndexer.Stats(0, 0, 0));
+        // 关闭前已开始执行的任务会正常结束
+        while (running.getStatus() == IndexJob.Status.WAITING) {
+            Thread.sleep(10);
+        }
+        jobExecutor.shutdown();
+        assertEquals(IndexJob.Status.SUCCESS, running.getStatus());
+        assertEquals(IndexJob.Status.FAILED, chained.getStatus());
+        assertEquals(IndexJob.Status.FAILED, queued.getStatus());
+        assertEquals(0, ((AtomicInteger) ReflectionTestUtils.getField(jobExecutor, "pending")).get());
+    }
+
+    private static void awaitEnd(IndexJob job) throws InterruptedException {
+        for (int i = 0; i < 100 && !isEnded(job); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue("任务没有在10秒内结束", isEnded(job));
+    }
+
+    private static boolean isEnded(IndexJob job) {
+        return job.getStatus() == IndexJob.Status.SUCCESS || job.getStatus() == IndexJob.Status.FAILED;
+    }
+
+    private static Document toDoc(Integer i) {
+        Document doc = new Document();
+        doc.add(new StringField("id", String.valueOf(i), Field.Store.YES));
+        return doc;
+    }
+}
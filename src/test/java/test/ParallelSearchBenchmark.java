@@ -0,0 +1,144 @@
+package test;
+
+import com.paulandcode.config.LuceneProperties;
+import com.paulandcode.utils.SearchCollectorManager;
+import com.paulandcode.utils.SlicedSearcherFactory;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.RAMDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: 并行检索各分片的性能对比, 直接运行main方法.
+ *  latency为单个请求的耗时, 并行检索可以降低; throughput为8个并发请求时的吞吐量, 并行检索会因线程切换而降低
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 00:05
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSearchBenchmark {
+    /**
+     * 并行检索的线程数, 0为不并行检索
+     */
+    @Param({"0", "4"})
+    private int searchThreads;
+
+    /**
+     * 索引的数据条数
+     */
+    @Param({"1000000"})
+    private int docs;
+
+    private static final String[] WORDS = {"检索", "索引", "分词", "高亮", "排序", "统计", "分页", "缓存", "权重", "补全"};
+
+    private RAMDirectory directory;
+
+    private DirectoryReader reader;
+
+    private ExecutorService executor;
+
+    private IndexSearcher searcher;
+
+    private Query query;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = new RAMDirectory();
+        // 不合并段, 每10万条一个段
+        IndexWriterConfig config = new IndexWriterConfig(new WhitespaceAnalyzer());
+        config.setMergePolicy(NoMergePolicy.INSTANCE);
+        config.setMaxBufferedDocs(100000);
+        config.setRAMBufferSizeMB(IndexWriterConfig.DISABLE_AUTO_FLUSH);
+        Random random = new Random(42);
+        try (IndexWriter indexWriter = new IndexWriter(directory, config)) {
+            for (int i = 0; i < docs; i++) {
+                StringBuilder body = new StringBuilder();
+                for (int j = 0; j < 20; j++) {
+                    body.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+                }
+                Document doc = new Document();
+                doc.add(new TextField("body", body.toString(), Field.Store.NO));
+                indexWriter.addDocument(doc);
+            }
+        }
+        reader = DirectoryReader.open(directory);
+        LuceneProperties.IndexProperties indexProperties = new LuceneProperties.IndexProperties();
+        indexProperties.setParallelSearch(true);
+        indexProperties.setParallelMinDocs(0);
+        executor = searchThreads > 0 ? Executors.newFixedThreadPool(searchThreads) : null;
+        searcher = new SlicedSearcherFactory(executor, indexProperties).newSearcher(reader, null);
+        query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term("body", "检索")), BooleanClause.Occur.SHOULD)
+                .add(new TermQuery(new Term("body", "排序")), BooleanClause.Occur.SHOULD)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        reader.close();
+        directory.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public TopDocs latency() throws IOException {
+        return search();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(8)
+    public TopDocs throughput() throws IOException {
+        return search();
+    }
+
+    private TopDocs search() throws IOException {
+        return searcher.search(query, new SearchCollectorManager(null, null, 10, false, () -> null));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ParallelSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
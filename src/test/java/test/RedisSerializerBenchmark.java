@@ -0,0 +1,97 @@
+package test;
+
+import com.paulandcode.config.BinaryRedisSerializer;
+import com.paulandcode.config.FastJsonRedisSerializer;
+import com.paulandcode.utils.SearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: 缓存value序列化的性能对比, 直接运行main方法, 同时会打印两种方式序列化后的字节数
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/18 20:10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisSerializerBenchmark {
+    /**
+     * 检索结果条数
+     */
+    @Param({"10", "100"})
+    private int rows;
+
+    private final FastJsonRedisSerializer<Object> fastJson = new FastJsonRedisSerializer<>(Object.class);
+
+    private final BinaryRedisSerializer binary = new BinaryRedisSerializer(1024);
+
+    private SearchResult searchResult;
+
+    private byte[] fastJsonBytes;
+
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setup() {
+        List<String[]> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            data.add(new String[]{"编号" + i, "检索结果的<span style='color:red'>高亮</span>内容, 第" + i + "条", "2018-09-26 17:44:00"});
+        }
+        searchResult = new SearchResult();
+        searchResult.setData(data);
+        searchResult.setCursor("AQAAAAAAAAAFAAAAYz-AAAAAAAAAm3Jd0a2xX0n1sPQ");
+        fastJsonBytes = fastJson.serialize(searchResult);
+        binaryBytes = binary.serialize(searchResult);
+    }
+
+    @Benchmark
+    public byte[] fastJsonSerialize() {
+        return fastJson.serialize(searchResult);
+    }
+
+    @Benchmark
+    public Object fastJsonDeserialize() {
+        return fastJson.deserialize(fastJsonBytes);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binary.serialize(searchResult);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() {
+        return binary.deserialize(binaryBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int rows : new int[]{10, 100}) {
+            RedisSerializerBenchmark benchmark = new RedisSerializerBenchmark();
+            benchmark.rows = rows;
+            benchmark.setup();
+            System.out.println(rows + "条结果, fastjson: " + benchmark.fastJsonBytes.length
+                    + "字节, 二进制: " + benchmark.binaryBytes.length + "字节");
+        }
+        new Runner(new OptionsBuilder().include(RedisSerializerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,122 @@
+package test;
+
+import com.paulandcode.utils.FieldBuilder;
+import com.paulandcode.utils.FileUtils;
+import com.paulandcode.utils.IndexManager;
+import com.paulandcode.utils.IndexSchema;
+import com.paulandcode.utils.SchemaRegistry;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @Description: 域定义保存时类型检查的测试, 索引根路径为临时文件夹, 不启动Spring容器
+ * @Author: paulandcode
+ * @Email: paulandcode@gmail.com
+ * @Date: 2026/10/19 04:10
+ */
+public class SchemaRegistryTest {
+    private static File rootDir;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        rootDir = Files.createTempDirectory("schema-registry-test").toFile();
+        new IndexManager().setRootPath(rootDir.getPath() + "/");
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        FileUtils.deleteAll(rootDir);
+    }
+
+    @Test
+    public void rejectsTypeChange() {
+        SchemaRegistry.save("typeChange", schema("price", IndexSchema.Type.LONG, false));
+        assertRejected("typeChange", schema("price", IndexSchema.Type.DOUBLE, false), "域price的类型不能修改, 请删除索引后重新创建! ");
+        assertEquals(IndexSchema.Type.LONG, SchemaRegistry.get("typeChange").getField("price").getType());
+    }
+
+    @Test
+    public void rejectsTypingUntypedData() throws IOException {
+        // 没有域定义时写入的数据: title为String形式, content为Text形式
+        try (Directory dir = FSDirectory.open(IndexManager.getFile("untyped").toPath());
+             IndexWriter indexWriter = new IndexWriter(dir, new IndexWriterConfig(new StandardAnalyzer()))) {
+            Document doc = new Document();
+            doc.add(new StringField("title", "1", Field.Store.YES));
+            doc.add(new TextField("content", "检索的内容", Field.Store.YES));
+            indexWriter.addDocument(doc);
+            indexWriter.commit();
+        }
+        assertRejected("untyped", schema("title", IndexSchema.Type.LONG, false), "域title已写入未定义类型的数据, 不能定义为LONG, 请删除索引后重新创建! ");
+        assertRejected("untyped", schema("title", IndexSchema.Type.KEYWORD, true), "域title已写入未定义类型的数据, 不能定义为KEYWORD(列存储), 请删除索引后重新创建! ");
+        assertRejected("untyped", schema("content", IndexSchema.Type.KEYWORD, false), "域content已写入未定义类型的数据, 不能定义为KEYWORD, 请删除索引后重新创建! ");
+        // 与已写入的数据一致的类型可以定义
+        IndexSchema schema = schema("title", IndexSchema.Type.KEYWORD, false);
+        schema.getFields().put("content", fieldDef(IndexSchema.Type.TEXT, false));
+        schema.getFields().put("price", fieldDef(IndexSchema.Type.LONG, true));
+        SchemaRegistry.save("untyped", schema);
+        assertEquals(IndexSchema.Type.KEYWORD, SchemaRegistry.get("untyped").getField("title").getType());
+    }
+
+    @Test
+    public void typedFieldsCanBeUpdatedByTerm() throws IOException {
+        FieldBuilder fieldBuilder = new FieldBuilder(schema("id", IndexSchema.Type.LONG, true), false);
+        try (RAMDirectory dir = new RAMDirectory();
+             IndexWriter indexWriter = new IndexWriter(dir, new IndexWriterConfig(new StandardAnalyzer()))) {
+            for (int i = 0; i < 3; i++) {
+                Document doc = new Document();
+                fieldBuilder.add(doc, "id", "7", false);
+                indexWriter.updateDocument(new Term("id", "7"), doc);
+            }
+            indexWriter.commit();
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                assertEquals(1, reader.numDocs());
+            }
+        }
+    }
+
+    private static void assertRejected(String indexName, IndexSchema schema, String message) {
+        try {
+            SchemaRegistry.save(indexName, schema);
+            fail("应拒绝保存域定义: " + schema.getFields().keySet());
+        } catch (RuntimeException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static IndexSchema schema(String fieldName, IndexSchema.Type type, boolean docValues) {
+        Map<String, IndexSchema.FieldDef> fields = new LinkedHashMap<>();
+        fields.put(fieldName, fieldDef(type, docValues));
+        IndexSchema schema = new IndexSchema();
+        schema.setFields(fields);
+        return schema;
+    }
+
+    private static IndexSchema.FieldDef fieldDef(IndexSchema.Type type, boolean docValues) {
+        IndexSchema.FieldDef fieldDef = new IndexSchema.FieldDef();
+        fieldDef.setType(type);
+        fieldDef.setDocValues(docValues);
+        return fieldDef;
+    }
+}